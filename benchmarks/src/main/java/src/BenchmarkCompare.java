@@ -0,0 +1,103 @@
+package src;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compare a JMH CSV result (-rf csv) with the checked-in baseline and fail on regressions.
+ *
+ * Usage: java -cp benchmarks.jar src.BenchmarkCompare <baseline.csv> <current.csv> [tolerancePercent]
+ * A benchmark regresses when it is slower than the baseline by more than the
+ * tolerance (default 20%) plus both runs' reported error. Exit status 1 on any regression.
+ */
+public class BenchmarkCompare {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java src.BenchmarkCompare <baseline.csv> <current.csv> [tolerancePercent]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.20;
+        Map<String, Result> baseline = read(Path.of(args[0]));
+        Map<String, Result> current = read(Path.of(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-62s %12s %12s %8s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-62s %12s %12.2f %8s%n", entry.getKey(), "-", now.score, "new");
+                continue;
+            }
+
+            // Time modes: lower is better; throughput modes: higher is better
+            boolean lowerIsBetter = !now.mode.equals("thrpt");
+            double change = (now.score - before.score) / before.score;
+            double worse = lowerIsBetter ? change : -change;
+            double allowed = tolerance + (before.error + now.error) / before.score;
+            boolean regressed = worse > allowed;
+            if (regressed) regressions++;
+
+            System.out.printf("%-62s %12.2f %12.2f %+7.1f%%%s%n", entry.getKey(), before.score, now.score,
+                    change * 100, regressed ? "  ❌ REGRESSION" : "");
+        }
+
+        System.out.println(regressions == 0 ? "✅ No regressions" : "❌ " + regressions + " regression(s)");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    private record Result(String mode, double score, double error) { }
+
+    /**
+     * Benchmark name plus parameter values -> result
+     */
+    private static Map<String, Result> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        Map<String, Result> results = new LinkedHashMap<>();
+        if (lines.isEmpty()) return results;
+
+        List<String> header = parseCsvLine(lines.get(0));
+        int name = header.indexOf("Benchmark"), mode = header.indexOf("Mode");
+        int score = header.indexOf("Score"), error = header.indexOf("Score Error (99.9%)");
+
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) continue;
+            List<String> cells = parseCsvLine(line);
+            StringBuilder key = new StringBuilder(cells.get(name));
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && i < cells.size() && !cells.get(i).isEmpty()) {
+                    key.append(' ').append(header.get(i).substring(7)).append('=').append(cells.get(i));
+                }
+            }
+            String errorCell = error >= 0 ? cells.get(error) : "";
+            results.put(key.toString(), new Result(cells.get(mode), Double.parseDouble(cells.get(score)),
+                    errorCell.isEmpty() || errorCell.equals("NaN") ? 0 : Double.parseDouble(errorCell)));
+        }
+        return results;
+    }
+
+    private static List<String> parseCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+}
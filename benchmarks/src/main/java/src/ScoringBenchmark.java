@@ -0,0 +1,89 @@
+package src;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring one submission: the original per-Question loop from ClientHandler
+ * against the precompiled AnswerKey, plain, shuffled and batched.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoringBenchmark {
+    private static final int BATCH = 256;
+
+    @Param({"10", "64"})
+    public int questions;
+
+    private List<Question> quiz;
+    private AnswerKey key;
+    private QuizShuffle shuffle;
+    private int[] answers;
+    private long[] bits;
+    private int[][] batch;
+    private QuizShuffle[] batchShuffles;
+    private int[] batchScores;
+    private long[] batchBits;
+
+    @Setup
+    public void setup() {
+        List<Question> base = QuizData.getQuestions();
+        quiz = new ArrayList<>(questions);
+        for (int i = 0; i < questions; i++) quiz.add(base.get(i % base.size()));
+        key = AnswerKey.compile(quiz);
+        shuffle = QuizShuffle.forSession(0x5EEDL, "alice");
+
+        Random random = new Random(42);
+        answers = randomAnswers(random);
+        bits = new long[key.words()];
+        batch = new int[BATCH][];
+        batchShuffles = new QuizShuffle[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            batch[i] = randomAnswers(random);
+            batchShuffles[i] = QuizShuffle.forSession(0x5EEDL, "student" + i);
+        }
+        batchScores = new int[BATCH];
+        batchBits = new long[BATCH * key.words()];
+    }
+
+    private int[] randomAnswers(Random random) {
+        int[] a = new int[questions];
+        for (int i = 0; i < a.length; i++) a[i] = random.nextInt(4);
+        return a;
+    }
+
+    @Benchmark
+    public int legacyLoop() {
+        // As ClientHandler scored before the AnswerKey existed
+        int score = 0;
+        for (int i = 0; i < quiz.size() && i < answers.length; i++) {
+            if (answers[i] == quiz.get(i).getCorrectOption()) score++;
+        }
+        return score;
+    }
+
+    @Benchmark
+    public int answerKey() {
+        return key.score(answers);
+    }
+
+    @Benchmark
+    public int answerKeyShuffled() {
+        return key.score(answers, shuffle, bits, 0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] answerKeyBatch() {
+        key.scoreBatch(batch, batchShuffles, BATCH, batchScores, batchBits);
+        return batchScores;
+    }
+}
@@ -0,0 +1,96 @@
+package src;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wire encoding of quiz and chat messages: legacy Java serialization against
+ * the binary QuizProtocol frames, and the ChatServer's per-message stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    private Question question;
+    private List<Question> quiz;
+    private ChatMessage chatMessage;
+
+    private byte[] questionBytes;
+    private byte[] quizObjectBytes;
+    private byte[] quizFrame;
+    private byte[] chatBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        quiz = QuizData.getQuestions();
+        question = quiz.get(0);
+        chatMessage = new ChatMessage("alice", "Is question 4 about UDP or TCP?", ChatMessage.MessageType.USER_MESSAGE);
+
+        questionBytes = serialize(question);
+        quizObjectBytes = serialize(quiz);
+        quizFrame = QuizProtocol.encodeFrame(quiz);
+        chatBytes = ChatServer.serializeMessage(chatMessage);
+    }
+
+    @Benchmark
+    public byte[] questionSerialize() throws IOException {
+        return serialize(question);
+    }
+
+    @Benchmark
+    public Object questionDeserialize() throws Exception {
+        return deserialize(questionBytes);
+    }
+
+    @Benchmark
+    public byte[] quizObjectSerialize() throws IOException {
+        return serialize(quiz);
+    }
+
+    @Benchmark
+    public Object quizObjectDeserialize() throws Exception {
+        return deserialize(quizObjectBytes);
+    }
+
+    @Benchmark
+    public byte[] quizBinaryEncode() throws IOException {
+        return QuizProtocol.encodeFrame(quiz);
+    }
+
+    @Benchmark
+    public Object quizBinaryDecode() throws IOException {
+        // encodeFrame output starts with the 4-byte length prefix
+        return QuizProtocol.decodeFrame(quizFrame, 4, quizFrame.length - 4);
+    }
+
+    @Benchmark
+    public byte[] chatSerializeMessage() {
+        return ChatServer.serializeMessage(chatMessage);
+    }
+
+    @Benchmark
+    public Object chatDeserializeMessage() throws Exception {
+        // serializeMessage output is a ChatFrames frame: 4-byte length prefix, then the object
+        return ChatFrames.decode(chatBytes, 4, chatBytes.length - 4);
+    }
+
+    private static byte[] serialize(Object obj) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(obj);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package src;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UDP text formats: Question.toUDPString / isCorrectUDPAnswer, and the
+ * per-datagram parsers of AutoUDPNotifier and UDPQuickPoll.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UdpParsingBenchmark {
+    private Question question;
+    private String pollAnswer = "POLL_ANSWER:B:alice";
+    private String registration = "REGISTER:alice:50123";
+    private String scoreEvent = "SCORE:alice:alice finished the quiz! Score: 7/10";
+    private String pollCommand = "What is the best feature of Java NIO? | Non-blocking I/O | Channel-based architecture | Selector for multiplexing";
+
+    @Setup
+    public void setup() {
+        question = Question.createQuickPoll("Which protocol is connectionless?",
+                new String[]{"TCP", "UDP", "HTTP", "FTP"}, 1);
+    }
+
+    @Benchmark
+    public String questionToUDPString() {
+        return question.toUDPString();
+    }
+
+    @Benchmark
+    public boolean isCorrectUDPAnswer() {
+        return Question.isCorrectUDPAnswer(question, pollAnswer);
+    }
+
+    @Benchmark
+    public int notifierRegistration() {
+        String[] registration = AutoUDPNotifier.parseRegistration(this.registration);
+        return registration != null ? Integer.parseInt(registration[1]) + registration[0].length() : -1;
+    }
+
+    @Benchmark
+    public String[] notifierScoreEvent() {
+        return AutoUDPNotifier.parseScoreEvent(scoreEvent);
+    }
+
+    @Benchmark
+    public String[] quickPollCommand() {
+        return UDPQuickPoll.parsePollCommand(pollCommand);
+    }
+
+    @Benchmark
+    public String[] quickPollResponse() {
+        return UDPQuickPoll.parsePollResponse(pollAnswer);
+    }
+}
@@ -0,0 +1,148 @@
+package src;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A quiz compiled for scoring: the expected option of every question packed
+ * into a byte array, so scoring never touches the Question objects.
+ *
+ * Rules per Question.QuestionType:
+ *  MULTIPLE_CHOICE, TRUE_FALSE, TIMED_CHALLENGE - the answer must equal the correct option
+ *  QUICK_POLL - same, but a poll with no correct option (negative) counts any valid choice
+ * (TIMED_CHALLENGE time limits are enforced by the quiz deadline, not here.)
+ *
+ * Correctness is reported as bits, question i -> bit (i % 64) of word (i / 64).
+ */
+public final class AnswerKey {
+    private static final byte ANY_CHOICE = -1;
+
+    private final byte[] expected;     // Correct option, or ANY_CHOICE
+    private final byte[] optionCounts; // Valid choices are 0..optionCount-1
+    private final int words;
+
+    private AnswerKey(byte[] expected, byte[] optionCounts) {
+        this.expected = expected;
+        this.optionCounts = optionCounts;
+        this.words = (expected.length + 63) >>> 6;
+    }
+
+    public static AnswerKey compile(List<Question> quiz) {
+        byte[] expected = new byte[quiz.size()];
+        byte[] optionCounts = new byte[quiz.size()];
+
+        for (int i = 0; i < quiz.size(); i++) {
+            Question q = quiz.get(i);
+            int options = q.getOptions().length;
+            int correct = q.getCorrectOption();
+            if (options > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many options in question " + i);
+            }
+
+            switch (q.getQuestionType()) {
+                case QUICK_POLL:
+                    expected[i] = correct < 0 ? ANY_CHOICE : (byte) correct;
+                    break;
+                case TRUE_FALSE:
+                case MULTIPLE_CHOICE:
+                case TIMED_CHALLENGE:
+                default:
+                    if (correct < 0 || correct >= options) {
+                        throw new IllegalArgumentException("Question " + i + " has no valid correct option");
+                    }
+                    expected[i] = (byte) correct;
+            }
+            optionCounts[i] = (byte) options;
+        }
+        return new AnswerKey(expected, optionCounts);
+    }
+
+    /** Number of questions */
+    public int size() { return expected.length; }
+
+    /** Correctness words per submission */
+    public int words() { return words; }
+
+    private boolean correct(int question, int answer) {
+        byte e = expected[question];
+        return e == ANY_CHOICE ? answer >= 0 && answer < optionCounts[question] : answer == e;
+    }
+
+    /**
+     * Score one submission without allocating. Missing answers count as wrong,
+     * extra answers are ignored.
+     */
+    public int score(int[] answers) {
+        int n = Math.min(expected.length, answers.length);
+        int score = 0;
+        for (int i = 0; i < n; i++) {
+            if (correct(i, answers[i])) score++;
+        }
+        return score;
+    }
+
+    /**
+     * Correctness bits of the first 64 questions (what ResultsStore keeps)
+     */
+    public long correctBits(int[] answers) {
+        int n = Math.min(Math.min(expected.length, answers.length), 64);
+        long bits = 0;
+        for (int i = 0; i < n; i++) {
+            if (correct(i, answers[i])) bits |= 1L << i;
+        }
+        return bits;
+    }
+
+    /**
+     * Score one submission and write its words() correctness words into bits at offset
+     *
+     * @return the score
+     */
+    public int score(int[] answers, long[] bits, int offset) {
+        int n = Math.min(expected.length, answers.length);
+        Arrays.fill(bits, offset, offset + words, 0L);
+        for (int i = 0; i < n; i++) {
+            if (correct(i, answers[i])) bits[offset + (i >>> 6)] |= 1L << i;
+        }
+        int score = 0;
+        for (int w = 0; w < words; w++) score += Long.bitCount(bits[offset + w]);
+        return score;
+    }
+
+    /**
+     * score(answers, bits, offset) for a submission given in a student's shuffled order
+     * (null shuffle = quiz order): each answer is mapped back to its question and option
+     * once, straight from the shuffle seed, and lands in that question's bit
+     *
+     * @return the score
+     */
+    public int score(int[] answers, QuizShuffle shuffle, long[] bits, int offset) {
+        if (shuffle == null) return score(answers, bits, offset);
+
+        int n = Math.min(expected.length, answers.length);
+        Arrays.fill(bits, offset, offset + words, 0L);
+        int score = 0;
+        for (int p = 0; p < n; p++) {
+            int q = shuffle.question(p, expected.length);
+            if (correct(q, shuffle.option(q, answers[p], optionCounts[q]))) {
+                bits[offset + (q >>> 6)] |= 1L << q;
+                score++;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Score count submissions in one pass; the packed key stays in cache
+     * while the submissions stream past it.
+     *
+     * @param shuffles each submission's order (null entries = quiz order)
+     * @param scores   receives count scores
+     * @param bits     receives count * words() correctness words in quiz order, submission-major
+     */
+    public void scoreBatch(int[][] submissions, QuizShuffle[] shuffles, int count, int[] scores, long[] bits) {
+        for (int s = 0; s < count; s++) {
+            scores[s] = score(submissions[s], shuffles[s], bits, s * words);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package src;
+
+import java.io.Serializable;
+
+/**
+ * One answer streamed by a student as it is chosen (question position as shown, -1 clears it)
+ */
+public class AnswerUpdate implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int question;
+    private int answer;
+
+    public AnswerUpdate(int question, int answer) {
+        this.question = question;
+        this.answer = answer;
+    }
+
+    public int getQuestion() { return question; }
+    public int getAnswer() { return answer; }
+}
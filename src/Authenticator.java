@@ -0,0 +1,185 @@
+package src;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Login verification for the quiz and chat servers.
+ *
+ * Password hashes are checked on a small bounded pool (one thread per core by
+ * default), so a login spike queues for CPU instead of stalling I/O threads,
+ * and a full queue answers "busy" rather than piling up. A successful login
+ * returns a signed session token (HMAC-SHA256 over role, username and expiry);
+ * reconnects and the chat server present it instead of a password, which costs
+ * one HMAC. Recently verified passwords are remembered by keyed fingerprint, so
+ * a repeated password login skips the hash too.
+ *
+ * Servers in different JVMs must share -Dquiz.tokenKey; otherwise a random key is used.
+ */
+public class Authenticator {
+    public static final int THREADS = Integer.getInteger("quiz.authThreads", Runtime.getRuntime().availableProcessors());
+    public static final int QUEUE = Integer.getInteger("quiz.authQueue", 10_000);
+    public static final long TOKEN_TTL_SECONDS = Long.getLong("quiz.tokenMinutes", 120) * 60;
+    private static final int CACHE_SIZE = 10_000;
+
+    private static final byte[] KEY = tokenKey();
+    private static final Map<String, Long> verified = new ConcurrentHashMap<>();
+    private static final ExecutorService pool = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE), Thread.ofPlatform().name("quiz-auth-", 0).daemon(true).factory());
+    private static volatile CredentialStore store;
+
+    /**
+     * Outcome of a login attempt
+     */
+    public static final class Result {
+        private final boolean success;
+        private final String role;
+        private final String username;
+        private final String token;
+        private final String message;
+
+        private Result(boolean success, String role, String username, String token, String message) {
+            this.success = success;
+            this.role = role;
+            this.username = username;
+            this.token = token;
+            this.message = message;
+        }
+
+        static Result granted(String role, String username) {
+            return new Result(true, role, username, issueToken(role, username), null);
+        }
+
+        static Result denied(String message) {
+            return new Result(false, null, null, null, message);
+        }
+
+        public boolean isSuccess() { return success; }
+        public boolean isTeacher() { return "teacher".equalsIgnoreCase(role); }
+        public String getRole() { return role; }
+        public String getUsername() { return username; }
+        public String getToken() { return token; }
+        public String getMessage() { return message; }
+    }
+
+    /**
+     * Load the configured credential store (-Dquiz.credentials); call once at startup
+     */
+    public static synchronized void loadCredentials() throws IOException {
+        if (store == null) store = CredentialStore.fromConfig();
+    }
+
+    private static CredentialStore store() {
+        if (store == null) {
+            synchronized (Authenticator.class) {
+                if (store == null) store = FileCredentialStore.demo();
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Check a login. Token logins and cached credentials complete at once;
+     * everything else is hashed on the verification pool.
+     */
+    public static CompletableFuture<Result> authenticate(LoginRequest login) {
+        String token = login.getToken();
+        if (token != null && !token.isEmpty()) {
+            Result result = verifyToken(token);
+            return CompletableFuture.completedFuture(result != null ? result : Result.denied("Session expired, please log in again"));
+        }
+
+        String role = String.valueOf(login.getRole()).toLowerCase();
+        String username = login.getUsername();
+        String password = login.getPassword();
+        if (username == null || username.isBlank() || username.indexOf('\n') >= 0 || password == null) {
+            return CompletableFuture.completedFuture(Result.denied("Invalid credentials"));
+        }
+
+        String fingerprint = fingerprint(role, username, password);
+        Long until = verified.get(fingerprint);
+        if (until != null && until > System.currentTimeMillis()) {
+            return CompletableFuture.completedFuture(Result.granted(role, username));
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                PasswordHash hash = store().find(role, username);
+                if (hash == null || !hash.verify(password)) return Result.denied("Invalid credentials");
+                remember(fingerprint);
+                return Result.granted(role, username);
+            }, pool);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(Result.denied("Server busy, please try again"));
+        }
+    }
+
+    /**
+     * Cheap check of a session token: the signed identity, or null if forged or expired
+     */
+    public static Result verifyToken(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0) return null;
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            byte[] mac = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(mac, hmac(payload))) return null;
+
+            String[] fields = new String(payload, StandardCharsets.UTF_8).split("\n", 3);
+            if (fields.length != 3 || Long.parseLong(fields[2]) < System.currentTimeMillis() / 1000) return null;
+            return new Result(true, fields[0], fields[1], token, null);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static String issueToken(String role, String username) {
+        long expiry = System.currentTimeMillis() / 1000 + TOKEN_TTL_SECONDS;
+        byte[] payload = (role + "\n" + username + "\n" + expiry).getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        return b64.encodeToString(payload) + "." + b64.encodeToString(hmac(payload));
+    }
+
+    private static void remember(String fingerprint) {
+        long now = System.currentTimeMillis();
+        if (verified.size() >= CACHE_SIZE) {
+            verified.values().removeIf(until -> until <= now);
+            if (verified.size() >= CACHE_SIZE) verified.clear();
+        }
+        verified.put(fingerprint, now + TOKEN_TTL_SECONDS * 1000);
+    }
+
+    /** Keyed, so the cache never holds anything a password could be recovered from */
+    private static String fingerprint(String role, String username, String password) {
+        byte[] input = ("login\n" + role + "\n" + username + "\n" + password).getBytes(StandardCharsets.UTF_8);
+        return Base64.getEncoder().encodeToString(hmac(input));
+    }
+
+    private static byte[] hmac(byte[] data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(KEY, "HmacSHA256"));
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private static byte[] tokenKey() {
+        String configured = System.getProperty("quiz.tokenKey");
+        if (configured != null && !configured.isEmpty()) {
+            return configured.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+}
@@ -3,24 +3,55 @@ package src;
 import java.net.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Automatic UDP Notifier
- * Automatically sends time-based notifications during the 5-minute quiz
+ * Automatically sends time-based notifications during the 5-minute quiz.
+ * All reminders share one TimingWheel; each running timer holds a single
+ * wheel entry that reschedules itself for the next reminder point.
  */
 public class AutoUDPNotifier {
     private static final int NOTIFICATION_PORT = 5010;
     private static final int QUIZ_DURATION_SECONDS = 300; // 5 minutes
+
+    // Global timer (manual "start"): seconds after start and the message sent to everyone
+    private static final int[] QUIZ_REMINDER_SECONDS = {60, 120, 180, 240, 270, 285, 300};
+    private static final String[] QUIZ_REMINDERS = {
+        "NOTIFICATION:4 minutes remaining! Keep going!",           // After 1 min (4 left)
+        "NOTIFICATION:3 minutes remaining! You're doing great!",   // After 2 min (3 left)
+        "TIME_WARNING:⏰ 2 minutes remaining! Speed up!",          // After 3 min (2 left)
+        "TIME_WARNING:⚠️ 1 MINUTE LEFT! Finish your answers!",    // After 4 min (1 left)
+        "TIME_WARNING:🚨 30 SECONDS LEFT! SUBMIT NOW!",           // After 4.5 min (30s left)
+        "TIME_WARNING:🚨 15 SECONDS! SUBMIT IMMEDIATELY!",        // After 4.75 min (15s left)
+        "QUIZ_END:⏰ TIME'S UP! Quiz has ended."                  // After 5 min (end)
+    };
+
+    // Per-student timer, started when the student begins the quiz
+    private static final int[] STUDENT_REMINDER_SECONDS = {60, 120, 180, 240, 270, 285};
+    private static final String[] STUDENT_REMINDERS = {
+        "NOTIFICATION:4 minutes remaining! Keep going!",
+        "NOTIFICATION:3 minutes remaining! You're doing great!",
+        "TIME_WARNING:⏰ 2 minutes remaining! Speed up!",
+        "TIME_WARNING:⚠️ 1 MINUTE LEFT! Finish your answers!",
+        "TIME_WARNING:🚨 30 SECONDS LEFT! ",
+        "TIME_WARNING:🚨 15 SECONDS!"
+    };
+
     private DatagramSocket socket;
-    private Map<String, ClientInfo> registeredClients = new HashMap<>();
-    private Timer notificationTimer;
+    private Map<String, ClientInfo> registeredClients = new ConcurrentHashMap<>();
+    private final TimingWheel wheel = TimingWheel.shared();
+    private volatile TimingWheel.Timeout notificationTimer;
+    private volatile int notificationGeneration = 0; // Bumped on start/stop so a reminder already firing doesn't reschedule
     
     private static class ClientInfo {
         String name;
         InetAddress address;
         int port;
         boolean isTeacher;
-        Timer individualTimer;
+        volatile TimingWheel.Timeout individualTimer; // Next reminder, null when no timer runs
+        volatile int timerGeneration = 0;
         long quizStartTime;
         
         ClientInfo(String name, InetAddress address, int port) {
@@ -34,6 +65,7 @@ public class AutoUDPNotifier {
     }
     
     public static void main(String[] args) {
+        Metrics.start();
         try {
             AutoUDPNotifier notifier = new AutoUDPNotifier();
             notifier.start();
@@ -99,38 +131,38 @@ public class AutoUDPNotifier {
         if (notificationTimer != null) {
             notificationTimer.cancel();
         }
+        int generation = ++notificationGeneration;
         
-        notificationTimer = new Timer("QuizNotificationTimer");
         System.out.println("🚀 Starting 5-minute quiz timer with automatic notifications...");
         
         // Send quiz start notification
         sendNotification("QUIZ_START:5-minute quiz has begun! Good luck!");
         
-        // Schedule notifications at specific times
-        scheduleNotification(60, "NOTIFICATION:4 minutes remaining! Keep going!");           // After 1 min (4 left)
-        scheduleNotification(120, "NOTIFICATION:3 minutes remaining! You're doing great!");   // After 2 min (3 left) 
-        scheduleNotification(180, "TIME_WARNING:⏰ 2 minutes remaining! Speed up!");          // After 3 min (2 left)
-        scheduleNotification(240, "TIME_WARNING:⚠️ 1 MINUTE LEFT! Finish your answers!");    // After 4 min (1 left)
-        scheduleNotification(270, "TIME_WARNING:🚨 30 SECONDS LEFT! SUBMIT NOW!");           // After 4.5 min (30s left)
-        scheduleNotification(285, "TIME_WARNING:🚨 15 SECONDS! SUBMIT IMMEDIATELY!");        // After 4.75 min (15s left)
-        scheduleNotification(300, "QUIZ_END:⏰ TIME'S UP! Quiz has ended.");                 // After 5 min (end)
+        // Schedule the first reminder; each one schedules the next
+        scheduleNotification(System.nanoTime(), 0, generation);
     }
     
-    private void scheduleNotification(int delaySeconds, String message) {
-        notificationTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                sendNotification(message);
-                int remainingMinutes = (QUIZ_DURATION_SECONDS - delaySeconds) / 60;
-                int remainingSeconds = (QUIZ_DURATION_SECONDS - delaySeconds) % 60;
-                System.out.println("⏰ Sent: " + message + " (Time left: " + remainingMinutes + ":" + 
-                    String.format("%02d", remainingSeconds) + ")");
-            }
-        }, delaySeconds * 1000L);
+    private void scheduleNotification(long startNanos, int index, int generation) {
+        if (index >= QUIZ_REMINDER_SECONDS.length) {
+            notificationTimer = null;
+            return;
+        }
+        int delaySeconds = QUIZ_REMINDER_SECONDS[index];
+        String message = QUIZ_REMINDERS[index];
+        notificationTimer = wheel.schedule(() -> {
+            if (generation != notificationGeneration) return; // Stopped or restarted meanwhile
+            sendNotification(message);
+            int remainingMinutes = (QUIZ_DURATION_SECONDS - delaySeconds) / 60;
+            int remainingSeconds = (QUIZ_DURATION_SECONDS - delaySeconds) % 60;
+            System.out.println("⏰ Sent: " + message + " (Time left: " + remainingMinutes + ":" + 
+                String.format("%02d", remainingSeconds) + ")");
+            scheduleNotification(startNanos, index + 1, generation);
+        }, startNanos + TimeUnit.SECONDS.toNanos(delaySeconds) - System.nanoTime(), TimeUnit.NANOSECONDS);
     }
     
     private void stopQuizTimer() {
         if (notificationTimer != null) {
+            notificationGeneration++;
             notificationTimer.cancel();
             notificationTimer = null;
             sendNotification("NOTIFICATION:Quiz timer has been stopped by teacher.");
@@ -158,6 +190,7 @@ public class AutoUDPNotifier {
                 while (true) {
                     DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
                     commandSocket.receive(packet);
+                    Metrics.UDP_RECEIVED.increment();
                     
                     String command = new String(packet.getData(), 0, packet.getLength());
                     handleAutomaticCommand(command);
@@ -178,12 +211,7 @@ public class AutoUDPNotifier {
         if (student == null) {
             System.out.println("⚠️  Student '" + studentName + "' not found yet - will retry in 1 second...");
             // Retry after 1 second to allow registration to complete
-            new Timer().schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    startIndividualQuizTimerNow(studentName);
-                }
-            }, 1000);
+            wheel.schedule(() -> startIndividualQuizTimerNow(studentName), 1, TimeUnit.SECONDS);
             return;
         }
         
@@ -210,9 +238,7 @@ public class AutoUDPNotifier {
         if (student.individualTimer != null) {
             student.individualTimer.cancel();
         }
-        
-        // Create new timer for this student
-        student.individualTimer = new Timer("QuizTimer-" + studentName);
+        int generation = ++student.timerGeneration;
         student.quizStartTime = System.currentTimeMillis();
         
         System.out.println("🚀 Starting 5-minute quiz timer for: " + studentName);
@@ -220,30 +246,29 @@ public class AutoUDPNotifier {
         // Send quiz start notification (only to this student)
         sendToClient("QUIZ_START:5-minute quiz has begun! Good luck!", student);
         
-        // Schedule notifications at specific times for this student
-        scheduleIndividualNotification(student, 60, "NOTIFICATION:4 minutes remaining! Keep going!");
-        scheduleIndividualNotification(student, 120, "NOTIFICATION:3 minutes remaining! You're doing great!");
-        scheduleIndividualNotification(student, 180, "TIME_WARNING:⏰ 2 minutes remaining! Speed up!");
-        scheduleIndividualNotification(student, 240, "TIME_WARNING:⚠️ 1 MINUTE LEFT! Finish your answers!");
-        scheduleIndividualNotification(student, 270, "TIME_WARNING:🚨 30 SECONDS LEFT! ");
-        scheduleIndividualNotification(student, 285, "TIME_WARNING:🚨 15 SECONDS!");
-        
+        // One wheel entry per student at a time: each reminder schedules the next
+        scheduleIndividualNotification(student, System.nanoTime(), 0, generation);
     }
     
     /**
-     * Schedule a notification for an individual student
+     * Schedule the next reminder for an individual student
      */
-    private void scheduleIndividualNotification(ClientInfo student, int delaySeconds, String message) {
-        student.individualTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                sendToClient(message, student);
-                int remainingMinutes = (QUIZ_DURATION_SECONDS - delaySeconds) / 60;
-                int remainingSeconds = (QUIZ_DURATION_SECONDS - delaySeconds) % 60;
-                System.out.println("⏰ Sent to " + student.name + ": " + message + 
-                    " (Time left: " + remainingMinutes + ":" + String.format("%02d", remainingSeconds) + ")");
-            }
-        }, delaySeconds * 1000L);
+    private void scheduleIndividualNotification(ClientInfo student, long startNanos, int index, int generation) {
+        if (index >= STUDENT_REMINDER_SECONDS.length) {
+            student.individualTimer = null;
+            return;
+        }
+        int delaySeconds = STUDENT_REMINDER_SECONDS[index];
+        String message = STUDENT_REMINDERS[index];
+        student.individualTimer = wheel.schedule(() -> {
+            if (generation != student.timerGeneration) return; // Stopped or restarted meanwhile
+            sendToClient(message, student);
+            int remainingMinutes = (QUIZ_DURATION_SECONDS - delaySeconds) / 60;
+            int remainingSeconds = (QUIZ_DURATION_SECONDS - delaySeconds) % 60;
+            System.out.println("⏰ Sent to " + student.name + ": " + message + 
+                " (Time left: " + remainingMinutes + ":" + String.format("%02d", remainingSeconds) + ")");
+            scheduleIndividualNotification(student, startNanos, index + 1, generation);
+        }, startNanos + TimeUnit.SECONDS.toNanos(delaySeconds) - System.nanoTime(), TimeUnit.NANOSECONDS);
     }
     
     /**
@@ -258,6 +283,7 @@ public class AutoUDPNotifier {
         }
         
         if (student.individualTimer != null) {
+            student.timerGeneration++;
             student.individualTimer.cancel();
             student.individualTimer = null;
             sendToClient("NOTIFICATION:Your quiz timer has been stopped.", student);
@@ -292,12 +318,10 @@ public class AutoUDPNotifier {
             
             if (eventMessage.startsWith("SCORE:")) {
                 // Extract student name and score message
-                String[] parts = eventMessage.split(":", 3);
-                if (parts.length >= 3) {
-                    String studentName = parts[1];
-                    String scoreMessage = parts[2];
+                String[] score = parseScoreEvent(eventMessage);
+                if (score != null) {
                     // Send score only to that student and teachers
-                    sendNotificationToStudentAndTeachers(studentName, "NOTIFICATION:" + scoreMessage);
+                    sendNotificationToStudentAndTeachers(score[0], "NOTIFICATION:" + score[1]);
                 }
             } else if (eventMessage.contains("started the quiz")) {
                 // Send "student started" notification only to teachers
@@ -317,6 +341,7 @@ public class AutoUDPNotifier {
                 while (true) {
                     DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
                     socket.receive(packet);
+                    Metrics.UDP_RECEIVED.increment();
                     
                     String message = new String(packet.getData(), 0, packet.getLength());
                     
@@ -342,13 +367,28 @@ public class AutoUDPNotifier {
         }, "RegistrationListener").start();
     }
     
+    /**
+     * "SCORE:studentName:message" -> {studentName, message}, or null if malformed
+     */
+    static String[] parseScoreEvent(String eventMessage) {
+        String[] parts = eventMessage.split(":", 3);
+        return parts.length >= 3 ? new String[]{parts[1], parts[2]} : null;
+    }
+
+    /**
+     * "REGISTER:StudentName:12345" -> {StudentName, 12345}, or null if malformed
+     */
+    static String[] parseRegistration(String message) {
+        String[] parts = message.split(":");
+        return parts.length == 3 ? new String[]{parts[1], parts[2]} : null;
+    }
+
     private void handleClientRegistration(String message, InetAddress clientAddress) {
         try {
-            // Parse: "REGISTER:StudentName:12345"
-            String[] parts = message.split(":");
-            if (parts.length == 3) {
-                String clientName = parts[1];
-                int clientPort = Integer.parseInt(parts[2]);
+            String[] registration = parseRegistration(message);
+            if (registration != null) {
+                String clientName = registration[0];
+                int clientPort = Integer.parseInt(registration[1]);
                 
                 ClientInfo client = new ClientInfo(clientName, clientAddress, clientPort);
                 registeredClients.put(clientName, client);
@@ -439,17 +479,30 @@ public class AutoUDPNotifier {
     }
     
     private boolean sendToClient(String message, ClientInfo client) {
+        QuizEvents.NotificationSent event = new QuizEvents.NotificationSent();
+        event.begin();
+        boolean sent = false;
         try {
             // Ensure proper UTF-8 encoding
             byte[] data = message.getBytes("UTF-8");
             DatagramPacket packet = new DatagramPacket(data, data.length, client.address, client.port);
             socket.send(packet);
-            return true;
+            Metrics.UDP_SENT.increment();
+            sent = true;
         } catch (Exception e) {
             System.err.println("Failed to send to " + client.name + ": " + e.getMessage());
             // Remove failed client
             registeredClients.remove(client.name);
-            return false;
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.student = client.name;
+            event.teacher = client.isTeacher;
+            event.message = message;
+            event.success = sent;
+            event.commit();
+        }
+        return sent;
     }
 }
@@ -0,0 +1,50 @@
+package src;
+
+import java.io.*;
+import java.net.Socket;
+
+/**
+ * Binary protocol: length-prefixed QuizProtocol frames
+ */
+public class BinaryQuizChannel implements QuizChannel {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    public BinaryQuizChannel(Socket socket, DataInputStream in, DataOutputStream out) {
+        this.socket = socket;
+        this.in = in;
+        this.out = out;
+    }
+
+    @Override
+    public void send(Object message) throws IOException {
+        out.write(QuizProtocol.encodeFrame(message));
+        out.flush();
+    }
+
+    @Override
+    public void sendQuiz(QuizPayload payload, QuizShuffle shuffle) throws IOException {
+        payload.writeBinaryFrame(out, shuffle);
+        out.flush();
+    }
+
+    @Override
+    public Object receive() throws IOException {
+        int length = in.readInt();
+        if (length < 1 || length > QuizProtocol.MAX_FRAME_BYTES) {
+            throw new StreamCorruptedException("Bad frame length " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return QuizProtocol.decodeFrame(body, 0, length);
+    }
+
+    @Override
+    public boolean isBinary() { return true; }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -6,6 +6,8 @@ import java.io.*;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Chat Client using NIO SocketChannel
@@ -18,10 +20,21 @@ public class ChatClientPanel extends JPanel {
 
     private SocketChannel chatChannel;
     private String username;
+    private String token; // Session token from the quiz login, null for anonymous chat
     private boolean isConnected = false;
 
+    // History catch-up, touched only by the receiving thread
+    private long lastSeq = 0;          // Newest history message shown
+    private boolean catchingUp = true; // Live messages wait until the last history page is shown
+    private final transient List<ChatMessage> heldBack = new ArrayList<>();
+
     public ChatClientPanel(String username) {
+        this(username, null);
+    }
+
+    public ChatClientPanel(String username, String token) {
         this.username = username;
+        this.token = token;
         setupUI();
         connectToServer();
     }
@@ -68,8 +81,9 @@ public class ChatClientPanel extends JPanel {
                 chatChannel.connect(new InetSocketAddress("localhost", ChatServer.CHAT_PORT));
                 chatChannel.configureBlocking(false); // Non-blocking mode
 
-                // Register username
-                sendObject(username);
+                // Register with the session token (the server takes the name from it), or a bare username
+                sendObject(token != null ? ChatServer.AUTH_PREFIX + token : username);
+                sendObject(new ChatHistoryRequest(lastSeq, ChatHistory.MAX_PAGE));
 
                 isConnected = true;
                 SwingUtilities.invokeLater(() -> {
@@ -112,15 +126,9 @@ public class ChatClientPanel extends JPanel {
     /**
      * Send object through NIO channel
      */
-    private boolean sendObject(Object obj) {
+    private synchronized boolean sendObject(Object obj) {
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(baos);
-            oos.writeObject(obj);
-            oos.flush();
-
-            byte[] data = baos.toByteArray();
-            ByteBuffer buffer = ByteBuffer.wrap(data);
+            ByteBuffer buffer = ByteBuffer.wrap(ChatFrames.encode(obj));
 
             while (buffer.hasRemaining()) {
                 chatChannel.write(buffer);
@@ -138,28 +146,24 @@ public class ChatClientPanel extends JPanel {
      */
     private void startReceiving() {
         new Thread(() -> {
-            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            ChatFrames.Decoder decoder = new ChatFrames.Decoder();
 
             while (isConnected && chatChannel.isOpen()) {
                 try {
-                    buffer.clear();
-                    int bytesRead = chatChannel.read(buffer);
+                    int bytesRead = decoder.read(chatChannel);
 
                     if (bytesRead > 0) {
-                        buffer.flip();
-
-                        byte[] data = new byte[buffer.remaining()];
-                        buffer.get(data);
-
-                        ByteArrayInputStream bais = new ByteArrayInputStream(data);
-                        ObjectInputStream ois = new ObjectInputStream(bais);
-                        Object obj = ois.readObject();
-
-                        if (obj instanceof ChatMessage) {
-                            ChatMessage msg = (ChatMessage) obj;
-                            SwingUtilities.invokeLater(() ->
-                                appendMessage(msg.toDisplayString() + "\n"));
+                        // History and bursts arrive several messages per read
+                        ByteBuffer frame;
+                        while ((frame = decoder.next()) != null) {
+                            Object obj = ChatFrames.decode(frame);
+                            if (obj instanceof ChatMessage) {
+                                receiveLive((ChatMessage) obj);
+                            } else if (obj instanceof ChatHistoryPage) {
+                                receiveHistory((ChatHistoryPage) obj);
+                            }
                         }
+                        continue; // More may be waiting
                     } else if (bytesRead == -1) {
                         // Connection closed
                         isConnected = false;
@@ -180,6 +184,39 @@ public class ChatClientPanel extends JPanel {
         }).start();
     }
 
+    /**
+     * Show a history page and ask for the next one; after the last, show what arrived meanwhile
+     */
+    private void receiveHistory(ChatHistoryPage page) throws IOException, ClassNotFoundException {
+        if (page.getOldestSeq() > lastSeq + 1 && lastSeq > 0) {
+            long missed = page.getOldestSeq() - lastSeq - 1;
+            SwingUtilities.invokeLater(() -> appendMessage("(" + missed + " older messages no longer kept)\n"));
+        }
+        for (ChatMessage msg : page.getMessages()) show(msg);
+        lastSeq = Math.max(lastSeq, page.getLastSeq());
+
+        if (page.hasMore()) {
+            sendObject(new ChatHistoryRequest(lastSeq, ChatHistory.MAX_PAGE));
+            return;
+        }
+        catchingUp = false;
+        for (ChatMessage msg : heldBack) receiveLive(msg);
+        heldBack.clear();
+    }
+
+    private void receiveLive(ChatMessage msg) {
+        if (catchingUp) {
+            heldBack.add(msg);
+        } else if (msg.getSeq() == 0 || msg.getSeq() > lastSeq) {
+            // Anything at or before lastSeq was already on a history page
+            show(msg);
+        }
+    }
+
+    private void show(ChatMessage msg) {
+        SwingUtilities.invokeLater(() -> appendMessage(msg.toDisplayString() + "\n"));
+    }
+
     /**
      * Append message to chat area
      */
@@ -0,0 +1,82 @@
+package src;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * One chat client as its reactor sees it: the frame decoder for what it
+ * sends, and a bounded queue of frames waiting to go out to it.
+ *
+ * send() writes straight to the socket while nothing is queued. Whatever the
+ * socket buffer can't take waits in the queue with OP_WRITE set, and flush()
+ * sends it with gathering writes when the selector reports the socket writable.
+ * A client that lets more than MAX_QUEUED_BYTES pile up is too slow to keep
+ * up with the room; send() returns false and the server disconnects it rather
+ * than buffer without limit or block the selector. Used only on the thread of
+ * the reactor that owns the connection.
+ */
+class ChatConnection {
+    public static final int MAX_QUEUED_BYTES = Integer.getInteger("chat.maxQueuedBytes", 1 << 20);
+    private static final int MAX_GATHER = 64; // Buffers per gathering write
+
+    final SocketChannel channel;
+    final SelectionKey key;
+    final ChatFrames.Decoder decoder = new ChatFrames.Decoder();
+    String username; // Null until the registration frame is accepted
+
+    private final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private long queuedBytes = 0;
+
+    ChatConnection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /**
+     * Write or queue one frame; false if the client is too far behind to keep.
+     * The buffer must not be touched afterwards (wrap shared bytes per client).
+     */
+    boolean send(ByteBuffer frame) throws IOException {
+        if (queue.isEmpty()) {
+            channel.write(frame);
+            if (!frame.hasRemaining()) return true;
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+        if (queuedBytes + frame.remaining() > MAX_QUEUED_BYTES) return false;
+        queue.add(frame);
+        queuedBytes += frame.remaining();
+        return true;
+    }
+
+    /**
+     * Gathering writes until the queue is empty or the socket buffer is full
+     */
+    void flush() throws IOException {
+        while (!queue.isEmpty()) {
+            int count = 0;
+            long batchBytes = 0;
+            for (ByteBuffer frame : queue) {
+                gather[count++] = frame;
+                batchBytes += frame.remaining();
+                if (count == MAX_GATHER) break;
+            }
+
+            long written = channel.write(gather, 0, count);
+            Arrays.fill(gather, 0, count, null);
+            queuedBytes -= written;
+            while (!queue.isEmpty() && !queue.peek().hasRemaining()) queue.poll();
+
+            if (written < batchBytes) return; // Socket buffer full; OP_WRITE stays set
+        }
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+    }
+
+    long queuedBytes() {
+        return queuedBytes;
+    }
+}
@@ -0,0 +1,131 @@
+package src;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Chat wire format: a 4-byte big-endian length, then one Java-serialized object
+ * (the registration String or a ChatMessage).
+ *
+ * TCP is a byte stream, so one read can end part-way through a message or hold
+ * several; the length prefix lets the reader find every boundary instead of
+ * hoping each read() is exactly one object.
+ */
+public final class ChatFrames {
+    public static final int MAX_FRAME_BYTES = 64 * 1024;
+    private static final int INITIAL_BUFFER_BYTES = 8192;
+
+    private ChatFrames() {}
+
+    /**
+     * Length prefix plus the serialized object, ready to write
+     */
+    public static byte[] encode(Object message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        bytes.write(new byte[4]); // Length, filled in below
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(message);
+        }
+        byte[] frame = bytes.toByteArray();
+        int length = frame.length - 4;
+        if (length > MAX_FRAME_BYTES) throw new IOException("Chat message too large: " + length + " bytes");
+        frame[0] = (byte) (length >>> 24);
+        frame[1] = (byte) (length >>> 16);
+        frame[2] = (byte) (length >>> 8);
+        frame[3] = (byte) length;
+        return frame;
+    }
+
+    /**
+     * Deserialize one frame's payload (without the length prefix)
+     */
+    public static Object decode(byte[] buf, int offset, int length) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buf, offset, length))) {
+            return in.readObject();
+        }
+    }
+
+    public static Object decode(ByteBuffer payload) throws IOException, ClassNotFoundException {
+        return decode(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+    }
+
+    /**
+     * Blocking read of the next frame, for socket streams
+     */
+    public static Object read(DataInputStream in) throws IOException, ClassNotFoundException {
+        int length = in.readInt();
+        checkLength(length);
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return decode(payload, 0, length);
+    }
+
+    private static void checkLength(int length) throws StreamCorruptedException {
+        if (length < 1 || length > MAX_FRAME_BYTES) {
+            throw new StreamCorruptedException("Bad chat frame length " + length);
+        }
+    }
+
+    /**
+     * Per-connection frame decoder for non-blocking channels. Bytes from each read
+     * are appended after whatever partial frame the last one left; next() then
+     * hands out every complete frame in the buffer.
+     */
+    public static final class Decoder {
+        private byte[] data = new byte[INITIAL_BUFFER_BYTES];
+        private int start = 0; // First byte not yet handed out
+        private int end = 0;   // One past the last byte read
+
+        /**
+         * One read from the channel into the free space; -1 at end of stream
+         */
+        public int read(ReadableByteChannel channel) throws IOException {
+            if (end == data.length) makeRoom();
+            int bytesRead = channel.read(ByteBuffer.wrap(data, end, data.length - end));
+            if (bytesRead > 0) end += bytesRead;
+            return bytesRead;
+        }
+
+        /**
+         * Payload of the next complete frame, or null if only part of one has arrived.
+         * The view is valid until the next read().
+         */
+        public ByteBuffer next() throws StreamCorruptedException {
+            if (end - start < 4) return null;
+            int length = ((data[start] & 0xFF) << 24) | ((data[start + 1] & 0xFF) << 16)
+                    | ((data[start + 2] & 0xFF) << 8) | (data[start + 3] & 0xFF);
+            checkLength(length);
+            if (end - start < 4 + length) return null;
+
+            ByteBuffer payload = ByteBuffer.wrap(data, start + 4, length);
+            start += 4 + length;
+            if (start == end) start = end = 0; // Drained; the next read starts at the front
+            return payload;
+        }
+
+        /** Bytes received but not yet handed out as frames */
+        public int buffered() {
+            return end - start;
+        }
+
+        private void makeRoom() {
+            if (start > 0) {
+                // Slide the partial frame to the front
+                System.arraycopy(data, start, data, 0, end - start);
+                end -= start;
+                start = 0;
+            } else if (data.length < 4 + MAX_FRAME_BYTES) {
+                // One frame bigger than the buffer; grow up to the largest legal frame
+                data = Arrays.copyOf(data, Math.min(data.length * 2, 4 + MAX_FRAME_BYTES));
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package src;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The last CAPACITY chat messages, kept as the frames they were broadcast in.
+ *
+ * Every message gets the next sequence number and lands in slot seq % CAPACITY,
+ * overwriting the message CAPACITY before it, so memory stays bounded however
+ * long the room runs. Reactors append concurrently without a lock: each claims
+ * a sequence, encodes, then publishes an immutable Entry into its slot. A page
+ * reads only the slots it returns, so catching up costs the requested range
+ * rather than the whole history. ChatLog follows the same ring to persist it.
+ */
+class ChatHistory {
+    public static final int CAPACITY = Math.max(1, Integer.getInteger("chat.historySize", 1000));
+    public static final int MAX_PAGE = 200;
+    // A page travels as one frame; room is left for the page's own serialization overhead
+    private static final int MAX_PAGE_BYTES = ChatFrames.MAX_FRAME_BYTES - 4096;
+    private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(Entry[].class);
+
+    /** One message, published whole so a reader never sees a frame with the wrong sequence */
+    static final class Entry {
+        final long seq;
+        final byte[] frame;
+
+        Entry(long seq, byte[] frame) {
+            this.seq = seq;
+            this.frame = frame;
+        }
+    }
+
+    private final Entry[] ring = new Entry[CAPACITY];
+    private final AtomicLong claimed = new AtomicLong(0); // Last sequence handed out; the first message is 1
+
+    /**
+     * Number the message, encode it and keep the frame; the frame is what gets broadcast
+     */
+    byte[] append(ChatMessage message) throws IOException {
+        long seq = claimed.incrementAndGet();
+        message.setSeq(seq);
+        byte[] frame;
+        try {
+            frame = ChatFrames.encode(message);
+        } catch (IOException e) {
+            // Keep the sequence dense so pages don't stop at the hole
+            ENTRIES.setRelease(ring, slot(seq), new Entry(seq, null));
+            throw e;
+        }
+        ENTRIES.setRelease(ring, slot(seq), new Entry(seq, frame));
+        return frame;
+    }
+
+    /**
+     * Up to limit messages after afterSeq, oldest first. Messages already pushed out
+     * of the ring are skipped (oldestSeq tells the client); the page stops early at a
+     * message another reactor has numbered but not yet stored.
+     */
+    ChatHistoryPage page(long afterSeq, int limit) {
+        limit = Math.max(1, Math.min(limit, MAX_PAGE));
+        long last = claimed.get();
+        long oldest = Math.max(1, last - CAPACITY + 1);
+        long seq = Math.max(afterSeq + 1, oldest);
+
+        ArrayList<byte[]> frames = new ArrayList<>((int) Math.min(limit, Math.max(0, last - seq + 1)));
+        long lastSeq = Math.max(afterSeq, oldest - 1);
+        int bytes = 0;
+        while (seq <= last && frames.size() < limit) {
+            Entry entry = (Entry) ENTRIES.getAcquire(ring, slot(seq));
+            if (entry == null || entry.seq < seq) break; // Still being encoded
+            // A later seq here means the slot was overwritten while we read; skip it
+            if (entry.seq == seq && entry.frame != null) {
+                if (bytes + entry.frame.length > MAX_PAGE_BYTES && !frames.isEmpty()) break;
+                // A single message too big for any page is skipped rather than stalling the client
+                if (entry.frame.length <= MAX_PAGE_BYTES) {
+                    frames.add(entry.frame);
+                    bytes += entry.frame.length;
+                }
+            }
+            lastSeq = seq++;
+        }
+        return new ChatHistoryPage(frames, lastSeq, oldest, lastSeq < last);
+    }
+
+    long lastSeq() {
+        return claimed.get();
+    }
+
+    /**
+     * The entry in seq's slot: null or an earlier seq while seq isn't stored yet,
+     * a later one once it has been overwritten. A null frame failed to encode.
+     */
+    Entry entry(long seq) {
+        return (Entry) ENTRIES.getAcquire(ring, slot(seq));
+    }
+
+    /**
+     * Put back a message replayed from the ChatLog, in increasing seq order, before any append
+     */
+    void restore(long seq, byte[] frame) {
+        // Messages missing from the log are kept as empty entries so pages step over them
+        for (long gap = Math.max(claimed.get() + 1, seq - CAPACITY + 1); gap < seq; gap++) {
+            ENTRIES.setRelease(ring, slot(gap), new Entry(gap, null));
+        }
+        ENTRIES.setRelease(ring, slot(seq), new Entry(seq, frame));
+        claimed.set(seq);
+    }
+
+    private static int slot(long seq) {
+        return (int) (seq % CAPACITY);
+    }
+}
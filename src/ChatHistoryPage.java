@@ -0,0 +1,43 @@
+package src;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of chat history, oldest first. The messages travel as the frames
+ * the server already encoded when they were sent, so a page costs the server
+ * a copy rather than a serialization per message.
+ */
+public class ChatHistoryPage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private ArrayList<byte[]> frames; // ChatFrames frames, length prefix included
+    private long lastSeq;        // Sequence of the last message here, or the request's afterSeq if empty
+    private long oldestSeq;      // Oldest sequence the server still keeps; later than afterSeq + 1 means a gap
+    private boolean more;        // Ask again after lastSeq for the next page
+
+    public ChatHistoryPage(ArrayList<byte[]> frames, long lastSeq, long oldestSeq, boolean more) {
+        this.frames = frames;
+        this.lastSeq = lastSeq;
+        this.oldestSeq = oldestSeq;
+        this.more = more;
+    }
+
+    public long getLastSeq() { return lastSeq; }
+    public long getOldestSeq() { return oldestSeq; }
+    public boolean hasMore() { return more; }
+    public int size() { return frames.size(); }
+
+    /**
+     * Decode the messages on this page
+     */
+    public List<ChatMessage> getMessages() throws IOException, ClassNotFoundException {
+        List<ChatMessage> messages = new ArrayList<>(frames.size());
+        for (byte[] frame : frames) {
+            messages.add((ChatMessage) ChatFrames.decode(frame, 4, frame.length - 4));
+        }
+        return messages;
+    }
+}
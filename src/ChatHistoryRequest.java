@@ -0,0 +1,22 @@
+package src;
+
+import java.io.Serializable;
+
+/**
+ * Sent by a chat client after registering: the next page of history after
+ * afterSeq (0 for everything still kept). The server answers with a ChatHistoryPage.
+ */
+public class ChatHistoryRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long afterSeq;
+    private int limit;
+
+    public ChatHistoryRequest(long afterSeq, int limit) {
+        this.afterSeq = afterSeq;
+        this.limit = limit;
+    }
+
+    public long getAfterSeq() { return afterSeq; }
+    public int getLimit() { return limit; }
+}
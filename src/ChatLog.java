@@ -0,0 +1,403 @@
+package src;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only chat log in memory-mapped segment files, so the room's history
+ * survives a restart.
+ *
+ * Reactors never touch it: a writer thread follows the ChatHistory ring and copies
+ * each newly stored frame into the mapped segment, so a burst of messages becomes
+ * one batch and one force() (group commit, as in ResultsJournal). Next to every
+ * segment a small mapped .idx file holds a sparse index, one (seq, position) entry
+ * per INDEX_BYTES of log. On startup that finds the end of the last segment and the
+ * start of the history window directly, so only the last ChatHistory.CAPACITY
+ * messages are read however long the log is. Sealed segments are deleted once older
+ * than chat.logRetentionHours or when the log outgrows chat.logMaxMB.
+ *
+ * Record: [int length][int crc32][long seq][frame as broadcast, length prefix included]
+ * Index entry: [long seq][int position]; a zero seq ends the index.
+ */
+public class ChatLog {
+    public static final String DIR = System.getProperty("chat.log", "chat-log"); // "off" disables
+    public static final int SEGMENT_BYTES = Math.max(1, Integer.getInteger("chat.logSegmentMB", 16)) << 20;
+    public static final long FLUSH_MS = Long.getLong("chat.logFlushMs", 50);
+    public static final long RETENTION_MS = TimeUnit.HOURS.toMillis(Long.getLong("chat.logRetentionHours", 168));
+    public static final long MAX_BYTES = Long.getLong("chat.logMaxMB", 1024) << 20;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int INDEX_BYTES = 4096; // Log bytes between index entries
+    private static final int INDEX_ENTRY_BYTES = 12;
+    private static final int INDEX_FILE_BYTES = (SEGMENT_BYTES / INDEX_BYTES + 2) * INDEX_ENTRY_BYTES;
+    private static final int MAX_BATCH = 4096; // Records copied between flush checks
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long EXPIRE_CHECK_MS = 60_000;
+
+    private final File dir;
+    private final ChatHistory history;
+    private final CRC32 crc = new CRC32();
+    private final ArrayDeque<File> sealed = new ArrayDeque<>(); // Oldest first
+    private final Thread writer;
+    private volatile boolean waiting = false;
+    private volatile boolean closed = false;
+
+    // Owned by the writer thread once open() returns
+    private File segmentFile;
+    private FileChannel channel;
+    private MappedByteBuffer segment; // Null until the first record of an empty log
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int indexCount;
+    private int lastIndexed;
+    private int flushedPosition;
+    private long lastSeq;
+    private long nextSeq;             // Next history sequence to copy
+    private long dirtySince = -1;     // nanoTime of the first record not yet forced
+    private long lastExpireCheck;
+
+    private ChatLog(File dir, ChatHistory history) {
+        this.dir = dir;
+        this.history = history;
+        this.writer = new Thread(this::writeLoop, "ChatLog-writer");
+        writer.setDaemon(true);
+    }
+
+    /**
+     * Open the log, restore its tail into the (still empty) history and start the writer
+     */
+    public static ChatLog open(File dir, ChatHistory history) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create chat log directory " + dir);
+        }
+        ChatLog log = new ChatLog(dir, history);
+        long start = System.nanoTime();
+        int restored = log.replay();
+        log.nextSeq = history.lastSeq() + 1;
+        System.out.println("💬 Chat log " + dir + ": restored " + restored + " messages up to seq "
+                + log.lastSeq + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        log.expire();
+
+        log.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(log::close, "ChatLog-close"));
+        return log;
+    }
+
+    /**
+     * A message was stored in the history; unpark the writer only if it went to sleep
+     */
+    void wake() {
+        if (waiting) LockSupport.unpark(writer);
+    }
+
+    /**
+     * Copy what's left, force it and stop the writer (shutdown hook)
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            boolean stopping = closed; // Read first so everything stored before close() is copied
+            int written = 0;
+            try {
+                written = drain();
+                if (written > 0 && dirtySince < 0) dirtySince = System.nanoTime();
+                if (dirtySince >= 0 && (stopping || System.nanoTime() - dirtySince >= TimeUnit.MILLISECONDS.toNanos(FLUSH_MS))) {
+                    force();
+                }
+                if (stopping) {
+                    closeSegment();
+                    return;
+                }
+                if (System.currentTimeMillis() - lastExpireCheck >= EXPIRE_CHECK_MS) expire();
+            } catch (IOException e) {
+                System.out.println("⚠️ Chat log write failed: " + e.getMessage());
+                if (stopping) return;
+                LockSupport.parkNanos(IDLE_PARK_NANOS); // Don't spin on a full disk
+                continue;
+            }
+
+            if (written == 0) {
+                // Announce the sleep, then look once more so a wake() in between isn't lost
+                waiting = true;
+                if (!closed && !available()) {
+                    long flushIn = TimeUnit.MILLISECONDS.toNanos(FLUSH_MS) - (System.nanoTime() - dirtySince);
+                    LockSupport.parkNanos(dirtySince < 0 ? IDLE_PARK_NANOS : Math.max(0, flushIn));
+                }
+                waiting = false;
+            }
+        }
+    }
+
+    private boolean available() {
+        ChatHistory.Entry entry = history.entry(nextSeq);
+        return entry != null && entry.seq >= nextSeq;
+    }
+
+    /**
+     * Copy stored messages from the history ring, in sequence order
+     */
+    private int drain() throws IOException {
+        int count = 0;
+        while (count < MAX_BATCH) {
+            ChatHistory.Entry entry = history.entry(nextSeq);
+            if (entry == null || entry.seq < nextSeq) break; // Not stored yet
+            if (entry.seq > nextSeq) {
+                // The ring lapped the writer; what it overwrote can't be logged any more
+                long resume = Math.max(nextSeq + 1, history.lastSeq() - ChatHistory.CAPACITY + 1);
+                System.out.println("⚠️ Chat log fell behind: messages " + nextSeq + "-" + (resume - 1) + " not logged");
+                nextSeq = resume;
+                continue;
+            }
+            if (entry.frame != null) {
+                append(entry.seq, entry.frame);
+                count++;
+            }
+            nextSeq++;
+        }
+        return count;
+    }
+
+    private void append(long seq, byte[] frame) throws IOException {
+        int length = 8 + frame.length;
+        if (segment == null || segment.remaining() < HEADER_BYTES + length + 4) {
+            roll(seq);
+        }
+
+        int start = segment.position();
+        segment.position(start + HEADER_BYTES);
+        segment.putLong(seq).put(frame);
+
+        crc.reset();
+        crc.update(segment.slice(start + HEADER_BYTES, length));
+        segment.putInt(start + 4, (int) crc.getValue());
+        segment.putInt(start, length); // Length last: a record is only valid once complete
+
+        if (indexCount == 0 || start - lastIndexed >= INDEX_BYTES) {
+            index.putLong(indexCount * INDEX_ENTRY_BYTES, seq);
+            index.putInt(indexCount * INDEX_ENTRY_BYTES + 8, start);
+            indexCount++;
+            lastIndexed = start;
+        }
+        lastSeq = seq;
+    }
+
+    private void force() {
+        if (segment == null) return;
+        int end = segment.position();
+        if (end > flushedPosition) {
+            segment.force(flushedPosition, end - flushedPosition);
+            index.force();
+            flushedPosition = end;
+        }
+        dirtySince = -1;
+    }
+
+    private void roll(long firstSeq) throws IOException {
+        if (segment != null) {
+            force();
+            closeSegment();
+            segmentFile.setLastModified(System.currentTimeMillis());
+            sealed.add(segmentFile);
+            expire();
+        }
+        openSegment(new File(dir, String.format("chat-%016d.log", firstSeq)));
+    }
+
+    private void openSegment(File file) throws IOException {
+        segmentFile = file;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+        indexChannel = FileChannel.open(indexFile(file).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_FILE_BYTES);
+        indexCount = 0;
+        lastIndexed = 0;
+        flushedPosition = 0;
+    }
+
+    private void closeSegment() throws IOException {
+        if (segment == null) return;
+        channel.close();
+        indexChannel.close();
+    }
+
+    /**
+     * Delete sealed segments past the retention time or beyond the size limit, oldest first
+     */
+    private void expire() {
+        long now = System.currentTimeMillis();
+        long cutoff = now - RETENTION_MS;
+        long maxSealed = Math.max(0, MAX_BYTES / SEGMENT_BYTES - 1); // The open segment counts too
+        while (!sealed.isEmpty() && (sealed.size() > maxSealed || sealed.peek().lastModified() < cutoff)) {
+            File file = sealed.poll();
+            if (!file.delete() || !indexFile(file).delete()) {
+                System.out.println("⚠️ Could not delete expired chat log segment " + file.getName());
+            } else {
+                System.out.println("🗑️ Chat log segment expired: " + file.getName());
+            }
+        }
+        lastExpireCheck = now;
+    }
+
+    /**
+     * Find the end of the newest segment, then restore the messages of the history
+     * window from the segments that hold them. Returns how many were restored.
+     */
+    private int replay() throws IOException {
+        File[] files = dir.listFiles((d, n) -> n.startsWith("chat-") && n.endsWith(".log"));
+        if (files == null) files = new File[0];
+        Arrays.sort(files);
+
+        // The newest segment may be empty if the server stopped right after rolling
+        int active = files.length - 1;
+        while (active >= 0) {
+            openSegment(files[active]);
+            if (recoverTail()) break;
+            closeSegment();
+            segment = null;
+            if (!files[active].delete() || !indexFile(files[active]).delete()) {
+                throw new IOException("Cannot remove empty chat log segment " + files[active].getName());
+            }
+            active--;
+        }
+        if (active < 0) return 0;
+        sealed.addAll(Arrays.asList(files).subList(0, active));
+
+        long from = Math.max(1, lastSeq - ChatHistory.CAPACITY + 1);
+        int first = active;
+        while (first > 0 && firstSeq(files[first]) > from) first--;
+
+        int restored = 0;
+        for (int i = first; i <= active; i++) {
+            ByteBuffer log = i == active ? segment : mapReadOnly(files[i], -1);
+            ByteBuffer idx = i == active ? index : mapReadOnly(indexFile(files[i]), INDEX_FILE_BYTES);
+            if (log == null) continue;
+            int end = i == active ? segment.position() : log.limit();
+            int position = i == first && idx != null ? indexedPosition(idx, from) : 0;
+
+            long seq;
+            while (position < end && (seq = recordSeq(log, position)) > history.lastSeq()) {
+                int length = log.getInt(position);
+                if (seq >= from) {
+                    byte[] frame = new byte[length - 8];
+                    log.get(position + HEADER_BYTES + 8, frame);
+                    history.restore(seq, frame);
+                    restored++;
+                }
+                position += HEADER_BYTES + length;
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Position the open segment after its last intact record, trusting the newest
+     * index entry that points at one. @return false if it holds no records.
+     */
+    private boolean recoverTail() {
+        int entries = 0;
+        while (entries * INDEX_ENTRY_BYTES < index.limit() && index.getLong(entries * INDEX_ENTRY_BYTES) != 0) entries++;
+
+        int position = 0;
+        while (entries > 0) {
+            int entry = (entries - 1) * INDEX_ENTRY_BYTES;
+            position = index.getInt(entry + 8);
+            if (position >= 0 && recordSeq(segment, position) == index.getLong(entry)) break;
+            entries--;
+            position = 0;
+        }
+        // Drop index entries past the one trusted, as the records they point at are gone
+        byte[] zeros = new byte[index.limit() - entries * INDEX_ENTRY_BYTES];
+        index.put(entries * INDEX_ENTRY_BYTES, zeros);
+        indexCount = entries;
+        lastIndexed = position;
+
+        long seq;
+        long last = 0;
+        while ((seq = recordSeq(segment, position)) > last) {
+            last = seq;
+            position += HEADER_BYTES + segment.getInt(position);
+        }
+
+        // Wipe a torn tail so stale bytes can never be mistaken for records later
+        if (position + 4 <= segment.limit() && segment.getInt(position) != 0) {
+            byte[] wipe = new byte[64 * 1024];
+            for (int p = position; p < segment.limit(); p += wipe.length) {
+                segment.put(p, wipe, 0, Math.min(wipe.length, segment.limit() - p));
+            }
+            segment.force();
+        }
+        segment.position(position);
+        flushedPosition = position;
+        if (last == 0) return false;
+        lastSeq = last;
+        return true;
+    }
+
+    /**
+     * Sequence of the intact record at position, or -1 at the end of the records or a torn one
+     */
+    private long recordSeq(ByteBuffer buf, int position) {
+        if (position > buf.limit() - HEADER_BYTES) return -1;
+        int length = buf.getInt(position);
+        if (length < 8 + 4 || length > buf.limit() - position - HEADER_BYTES) return -1;
+        crc.reset();
+        crc.update(buf.slice(position + HEADER_BYTES, length));
+        if ((int) crc.getValue() != buf.getInt(position + 4)) return -1;
+        return buf.getLong(position + HEADER_BYTES);
+    }
+
+    /** Position of the last indexed record at or before seq (binary search), or 0 */
+    private static int indexedPosition(ByteBuffer idx, long seq) {
+        int low = 0;
+        int high = idx.limit() / INDEX_ENTRY_BYTES - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long entrySeq = idx.getLong(mid * INDEX_ENTRY_BYTES);
+            if (entrySeq != 0 && entrySeq <= seq) {
+                found = idx.getInt(mid * INDEX_ENTRY_BYTES + 8);
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /** Read-only mapping of a sealed file; null if it is missing */
+    private static ByteBuffer mapReadOnly(File file, int bytes) throws IOException {
+        if (!file.exists()) return null;
+        try (FileChannel readChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = bytes < 0 ? readChannel.size() : Math.min(bytes, readChannel.size());
+            return readChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private static long firstSeq(File file) {
+        return Long.parseLong(file.getName().substring(5, 21));
+    }
+
+    private static File indexFile(File segmentFile) {
+        return new File(segmentFile.getParentFile(), segmentFile.getName().replace(".log", ".idx"));
+    }
+}
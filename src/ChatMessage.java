@@ -14,6 +14,7 @@ public class ChatMessage implements Serializable {
     private String content;
     private String timestamp;
     private MessageType type;
+    private long seq; // History sequence number set by the server; 0 for system notices
 
     public enum MessageType {
         USER_MESSAGE,      // Regular chat message
@@ -33,6 +34,9 @@ public class ChatMessage implements Serializable {
     public String getContent() { return content; }
     public String getTimestamp() { return timestamp; }
     public MessageType getType() { return type; }
+    public long getSeq() { return seq; }
+
+    void setSeq(long seq) { this.seq = seq; }
 
     @Override
     public String toString() {
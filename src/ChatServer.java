@@ -5,57 +5,80 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * NIO-based Chat Server using Selector for non-blocking I/O
- * Handles multiple client connections efficiently with a single thread
+ * NIO-based Chat Server using Selectors for non-blocking I/O
+ * One acceptor spreads connections over -Dchat.reactors selector threads (one per
+ * core by default); each reactor reads, decodes and writes only its own clients.
+ * A broadcast is serialized once by the reactor that read it and handed to every
+ * other reactor through a lock-free queue, so chat throughput grows with cores.
+ * Messages are length-prefixed frames (see ChatFrames); writes never block a
+ * selector, each client has a bounded outbound queue (see ChatConnection).
+ * Recent messages are kept in a bounded ring (see ChatHistory) that clients page
+ * through with ChatHistoryRequest after registering; ChatLog persists it, so the
+ * history survives a restart.
  */
 public class ChatServer {
     public static final int CHAT_PORT = 5001;
+    public static final String AUTH_PREFIX = "AUTH:";
+    public static final int REACTOR_COUNT = Integer.getInteger("chat.reactors",
+            Runtime.getRuntime().availableProcessors());
+
+    // Bare-username registration (no quiz session token) is refused unless -Dchat.allowAnonymous=true
+    private static final boolean ALLOW_ANONYMOUS = Boolean.getBoolean("chat.allowAnonymous");
     private Selector selector;
     private ServerSocketChannel serverChannel;
+    private final Reactor[] reactors;
+    private int nextReactor = 0;
 
-    // Map to store client info: channel -> username
-    private final Map<SocketChannel, String> clients = new ConcurrentHashMap<>();
-    private final Map<SocketChannel, ByteBuffer> clientBuffers = new ConcurrentHashMap<>();
+    // Registered clients across all reactors
+    private final AtomicInteger registered = new AtomicInteger();
 
-    // Chat message history
-    private final List<ChatMessage> messageHistory = Collections.synchronizedList(new ArrayList<>());
+    // Last chat.historySize messages, numbered and encoded once
+    private final ChatHistory history = new ChatHistory();
+    private ChatLog log; // Null with -Dchat.log=off
 
     public ChatServer() throws IOException {
+        if (!ChatLog.DIR.equalsIgnoreCase("off")) {
+            log = ChatLog.open(new File(ChatLog.DIR), history);
+        }
+
         selector = Selector.open();
         serverChannel = ServerSocketChannel.open();
         serverChannel.bind(new InetSocketAddress(CHAT_PORT));
         serverChannel.configureBlocking(false);
         serverChannel.register(selector, SelectionKey.OP_ACCEPT);
 
-        System.out.println("Chat Server started on port " + CHAT_PORT + " (NIO mode)");
+        reactors = new Reactor[Math.max(1, REACTOR_COUNT)];
+        for (int i = 0; i < reactors.length; i++) {
+            reactors[i] = new Reactor();
+        }
+
+        System.out.println("Chat Server started on port " + CHAT_PORT + " (NIO mode, "
+                + reactors.length + " reactors)");
     }
 
     public void start() {
+        for (int i = 0; i < reactors.length; i++) {
+            Thread t = new Thread(reactors[i], "ChatReactor-" + i);
+            reactors[i].thread = t;
+            t.start();
+        }
+
         try {
             while (true) {
-                // Wait for events (non-blocking after timeout)
                 selector.select();
 
-                Set<SelectionKey> selectedKeys = selector.selectedKeys();
-                Iterator<SelectionKey> iterator = selectedKeys.iterator();
-
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
                 while (iterator.hasNext()) {
                     SelectionKey key = iterator.next();
                     iterator.remove();
 
-                    if (!key.isValid()) continue;
-
-                    try {
-                        if (key.isAcceptable()) {
-                            handleAccept(key);
-                        } else if (key.isReadable()) {
-                            handleRead(key);
-                        }
-                    } catch (IOException e) {
-                        handleClientDisconnect(key);
+                    if (key.isValid() && key.isAcceptable()) {
+                        handleAccept();
                     }
                 }
             }
@@ -65,183 +88,339 @@ public class ChatServer {
     }
 
     /**
-     * Accept new client connection
+     * Accept new client connections and spread them round-robin over the reactors
      */
-    private void handleAccept(SelectionKey key) throws IOException {
-        ServerSocketChannel serverChannel = (ServerSocketChannel) key.channel();
-        SocketChannel clientChannel = serverChannel.accept();
-
-        if (clientChannel != null) {
+    private void handleAccept() throws IOException {
+        SocketChannel clientChannel;
+        while ((clientChannel = serverChannel.accept()) != null) {
             clientChannel.configureBlocking(false);
-            clientChannel.register(selector, SelectionKey.OP_READ);
-            clientBuffers.put(clientChannel, ByteBuffer.allocate(8192));
-
             System.out.println("New chat client connected: " + clientChannel.getRemoteAddress());
+            reactors[nextReactor].register(clientChannel);
+            nextReactor = (nextReactor + 1) % reactors.length;
         }
     }
 
     /**
-     * Read data from client using NIO
+     * Display name for a registration string, or null if it is not accepted
      */
-    private void handleRead(SelectionKey key) throws IOException {
-        SocketChannel clientChannel = (SocketChannel) key.channel();
-        ByteBuffer buffer = clientBuffers.get(clientChannel);
+    private String registeredName(String registration) {
+        if (registration.startsWith(AUTH_PREFIX)) {
+            Authenticator.Result auth = Authenticator.verifyToken(registration.substring(AUTH_PREFIX.length()));
+            if (auth == null) return null;
+            return auth.isTeacher() ? auth.getUsername() + " (Teacher)" : auth.getUsername();
+        }
+        return ALLOW_ANONYMOUS ? registration : null;
+    }
 
-        if (buffer == null) {
-            buffer = ByteBuffer.allocate(8192);
-            clientBuffers.put(clientChannel, buffer);
+    /**
+     * Hand one message to every reactor; the calling reactor delivers its share itself, last,
+     * so the others are already writing
+     */
+    private void broadcastMessage(Reactor origin, byte[] messageData, ChatConnection exclude,
+                                 long readNanos, QuizEvents.ChatBroadcast event) {
+        Broadcast broadcast = new Broadcast(messageData, exclude, readNanos, event, reactors.length);
+        for (Reactor reactor : reactors) {
+            if (reactor != origin) reactor.deliver(broadcast);
         }
+        origin.deliverLocal(broadcast);
+    }
 
-        int bytesRead = clientChannel.read(buffer);
+    /**
+     * Broadcast a system notice; these aren't numbered or kept in the history
+     */
+    private void broadcastNotice(Reactor origin, String content) {
+        ChatMessage notice = new ChatMessage("SYSTEM", content, ChatMessage.MessageType.SYSTEM_MESSAGE);
+        byte[] messageData = serializeMessage(notice);
+        if (messageData != null) broadcastMessage(origin, messageData, null, System.nanoTime(), null);
+    }
 
-        if (bytesRead == -1) {
-            handleClientDisconnect(key);
-            return;
+    /**
+     * Serialize ChatMessage to a length-prefixed frame
+     */
+    static byte[] serializeMessage(ChatMessage message) {
+        try {
+            return ChatFrames.encode(message);
+        } catch (IOException e) {
+            System.err.println("Error serializing message: " + e.getMessage());
+            return null;
         }
+    }
 
-        if (bytesRead > 0) {
-            buffer.flip();
+    /**
+     * One serialized message on its way to every reactor
+     */
+    private static final class Broadcast {
+        final byte[] frame;
+        final ChatConnection exclude; // The sender, or null
+        final long readNanos;
+        final QuizEvents.ChatBroadcast event; // Null for join/leave notices
+        final AtomicInteger reactorsLeft;
+
+        Broadcast(byte[] frame, ChatConnection exclude, long readNanos,
+                  QuizEvents.ChatBroadcast event, int reactorCount) {
+            this.frame = frame;
+            this.exclude = exclude;
+            this.readNanos = readNanos;
+            this.event = event;
+            this.reactorsLeft = new AtomicInteger(reactorCount);
+        }
+    }
 
-            try {
-                // Deserialize the ChatMessage object
-                byte[] data = new byte[buffer.remaining()];
-                buffer.get(data);
+    /**
+     * Selector loop owning a subset of the chat clients
+     */
+    private final class Reactor implements Runnable {
+        private final Selector selector;
+        private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+        private final Queue<Broadcast> inbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean wakeupPending = new AtomicBoolean(false);
+        private final List<ChatConnection> connections = new ArrayList<>(); // Reactor thread only
+        private Thread thread;
+
+        Reactor() throws IOException {
+            selector = Selector.open();
+        }
 
-                ByteArrayInputStream bais = new ByteArrayInputStream(data);
-                ObjectInputStream ois = new ObjectInputStream(bais);
-                Object obj = ois.readObject();
+        void register(SocketChannel channel) {
+            pendingChannels.add(channel);
+            wakeup();
+        }
 
-                if (obj instanceof ChatMessage) {
-                    handleChatMessage(clientChannel, (ChatMessage) obj);
-                } else if (obj instanceof String) {
-                    // Handle username registration
-                    String username = (String) obj;
-                    clients.put(clientChannel, username);
-                    System.out.println("User registered: " + username);
+        /**
+         * Queue a broadcast from another reactor (safe to call from any thread)
+         */
+        void deliver(Broadcast broadcast) {
+            inbox.add(broadcast);
+            wakeup();
+        }
 
-                    // Send message history to new client
-                    sendMessageHistory(clientChannel);
+        /** One selector wakeup per batch of handoffs, not per message */
+        private void wakeup() {
+            if (wakeupPending.compareAndSet(false, true)) selector.wakeup();
+        }
 
-                    // Broadcast join message
-                    ChatMessage joinMsg = new ChatMessage("SYSTEM",
-                            username + " joined the chat",
-                            ChatMessage.MessageType.SYSTEM_MESSAGE);
-                    broadcastMessage(joinMsg, null);
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                    // Clear before draining: a handoff after this point wakes the next select()
+                    wakeupPending.set(false);
+
+                    SocketChannel channel;
+                    while ((channel = pendingChannels.poll()) != null) {
+                        handleRegister(channel);
+                    }
+                    Broadcast broadcast;
+                    while ((broadcast = inbox.poll()) != null) {
+                        deliverLocal(broadcast);
+                    }
+
+                    Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                    while (iterator.hasNext()) {
+                        SelectionKey key = iterator.next();
+                        iterator.remove();
+
+                        ChatConnection connection = (ChatConnection) key.attachment();
+                        if (!key.isValid()) continue;
+
+                        try {
+                            if (key.isWritable()) {
+                                connection.flush();
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                handleRead(connection);
+                            }
+                        } catch (IOException e) {
+                            handleClientDisconnect(connection);
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("Chat reactor error: " + e.getMessage());
                 }
+            }
+        }
 
-                buffer.clear();
-            } catch (ClassNotFoundException e) {
-                System.err.println("Error deserializing message: " + e.getMessage());
-                buffer.clear();
+        private void handleRegister(SocketChannel channel) {
+            try {
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                ChatConnection connection = new ChatConnection(channel, key);
+                key.attach(connection);
+                connections.add(connection);
             } catch (IOException e) {
-                // If deserialization fails, just clear and continue
-                buffer.clear();
+                System.err.println("Error registering chat client: " + e.getMessage());
+                try { channel.close(); } catch (IOException ignored) {}
             }
         }
-    }
 
-    /**
-     * Process and broadcast chat message
-     */
-    private void handleChatMessage(SocketChannel sender, ChatMessage message) {
-        String username = clients.get(sender);
+        /**
+         * Read data from client using NIO; one read may complete several frames, or none
+         */
+        private void handleRead(ChatConnection connection) throws IOException {
+            long readNanos = System.nanoTime();
+            ChatFrames.Decoder decoder = connection.decoder;
+
+            int bytesRead = decoder.read(connection.channel);
+
+            if (bytesRead == -1) {
+                handleClientDisconnect(connection);
+                return;
+            }
+
+            // A partial frame stays in the decoder until the rest arrives; a bad length ends the connection
+            ByteBuffer frame;
+            while (connection.key.isValid() && (frame = decoder.next()) != null) {
+                Object obj;
+                try {
+                    obj = ChatFrames.decode(frame);
+                } catch (ClassNotFoundException | IOException e) {
+                    // The length prefix says where the next frame starts, so only this one is lost
+                    System.err.println("Error deserializing message: " + e.getMessage());
+                    continue;
+                }
 
-        if (username == null) {
-            System.err.println("Received message from unregistered client");
-            return;
+                if (obj instanceof ChatMessage) {
+                    handleChatMessage(connection, (ChatMessage) obj, readNanos);
+                } else if (obj instanceof ChatHistoryRequest) {
+                    sendHistoryPage(connection, (ChatHistoryRequest) obj);
+                } else if (obj instanceof String) {
+                    // Handle registration: a session token is one HMAC check, no password hashing
+                    String username = registeredName((String) obj);
+                    if (username == null) {
+                        System.out.println("Chat registration refused: " + connection.channel.getRemoteAddress());
+                        handleClientDisconnect(connection);
+                        return;
+                    }
+                    if (connection.username == null) registered.incrementAndGet();
+                    connection.username = username;
+                    System.out.println("User registered: " + username);
+
+                    // Broadcast join message; history is sent only when the client asks for it
+                    broadcastNotice(this, username + " joined the chat");
+                }
+            }
         }
 
-        // Add to history
-        messageHistory.add(message);
-        System.out.println("Chat: " + message.toDisplayString());
+        /**
+         * Process and broadcast chat message
+         */
+        private void handleChatMessage(ChatConnection sender, ChatMessage message, long readNanos) {
+            String username = sender.username;
 
-        // Broadcast to all clients except sender
-        broadcastMessage(message, sender);
-    }
+            if (username == null) {
+                System.err.println("Received message from unregistered client");
+                return;
+            }
 
-    /**
-     * Broadcast message to all connected clients
-     */
-    private void broadcastMessage(ChatMessage message, SocketChannel excludeChannel) {
-        byte[] messageData = serializeMessage(message);
-        if (messageData == null) return;
+            QuizEvents.ChatBroadcast event = new QuizEvents.ChatBroadcast();
+            event.begin();
+            event.student = username;
+            event.recipients = registered.get() - 1;
 
-        ByteBuffer buffer = ByteBuffer.wrap(messageData);
+            // Number and encode once; the history keeps the same frame that is broadcast
+            byte[] messageData;
+            try {
+                messageData = history.append(message);
+            } catch (IOException e) {
+                System.err.println("Error serializing message: " + e.getMessage());
+                return;
+            }
+            if (log != null) log.wake();
+            System.out.println("Chat: " + message.toDisplayString());
 
-        for (SocketChannel client : clients.keySet()) {
-            if (client != excludeChannel && client.isOpen()) {
+            // Broadcast to all clients except sender
+            broadcastMessage(this, messageData, sender, readNanos, event);
+            Metrics.CHAT_MESSAGES.increment();
+        }
+
+        /**
+         * Write (or queue) a broadcast to this reactor's registered clients. Clients too far
+         * behind are disconnected afterwards; the last reactor to finish records the latency.
+         */
+        void deliverLocal(Broadcast broadcast) {
+            List<ChatConnection> dropped = null;
+
+            for (ChatConnection connection : connections) {
+                if (connection == broadcast.exclude || connection.username == null) continue;
                 try {
-                    buffer.rewind();
-                    client.write(buffer);
+                    if (connection.send(ByteBuffer.wrap(broadcast.frame))) continue;
+                    System.out.println("🐢 Disconnecting slow chat client " + connection.username
+                            + " (" + connection.queuedBytes() + " bytes queued)");
+                    Metrics.CHAT_SLOW_DISCONNECTS.increment();
                 } catch (IOException e) {
                     System.err.println("Error broadcasting to client: " + e.getMessage());
                 }
+                if (dropped == null) dropped = new ArrayList<>();
+                dropped.add(connection);
             }
-        }
-    }
 
-    /**
-     * Send message history to newly connected client
-     */
-    private void sendMessageHistory(SocketChannel client) {
-        synchronized (messageHistory) {
-            for (ChatMessage msg : messageHistory) {
-                byte[] data = serializeMessage(msg);
-                if (data != null) {
-                    try {
-                        client.write(ByteBuffer.wrap(data));
-                    } catch (IOException e) {
-                        System.err.println("Error sending history: " + e.getMessage());
-                    }
+            if (broadcast.reactorsLeft.decrementAndGet() == 0 && broadcast.event != null) {
+                Metrics.CHAT_BROADCAST.recordSince(broadcast.readNanos);
+                QuizEvents.ChatBroadcast event = broadcast.event;
+                event.end();
+                if (event.shouldCommit()) {
+                    event.sinceRead = System.nanoTime() - broadcast.readNanos;
+                    event.commit();
                 }
             }
+
+            // Disconnect after the loop so the leave messages don't nest inside this broadcast
+            if (dropped != null) handleClientDisconnect(dropped);
         }
-    }
 
-    /**
-     * Serialize ChatMessage to byte array
-     */
-    private byte[] serializeMessage(ChatMessage message) {
-        try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(baos);
-            oos.writeObject(message);
-            oos.flush();
-            return baos.toByteArray();
-        } catch (IOException e) {
-            System.err.println("Error serializing message: " + e.getMessage());
-            return null;
+        /**
+         * Send one page of history (queued like any other frame); the client asks for the next
+         */
+        private void sendHistoryPage(ChatConnection connection, ChatHistoryRequest request) throws IOException {
+            if (connection.username == null) {
+                System.err.println("History request from unregistered client");
+                return;
+            }
+            ChatHistoryPage page = history.page(request.getAfterSeq(), request.getLimit());
+            byte[] data = ChatFrames.encode(page);
+            if (!connection.send(ByteBuffer.wrap(data))) {
+                throw new IOException("History page larger than the outbound queue");
+            }
         }
-    }
 
-    /**
-     * Handle client disconnection
-     */
-    private void handleClientDisconnect(SelectionKey key) {
-        SocketChannel clientChannel = (SocketChannel) key.channel();
-        String username = clients.remove(clientChannel);
-        clientBuffers.remove(clientChannel);
+        /**
+         * Handle client disconnection
+         */
+        private void handleClientDisconnect(ChatConnection connection) {
+            handleClientDisconnect(List.of(connection));
+        }
 
-        if (username != null) {
-            System.out.println("User disconnected: " + username);
+        /**
+         * Close every connection first, then announce them, so one leave message
+         * isn't written to clients that are about to be dropped as well
+         */
+        private void handleClientDisconnect(List<ChatConnection> gone) {
+            List<String> left = new ArrayList<>();
+            for (ChatConnection connection : gone) {
+                if (!connections.remove(connection)) continue; // Already gone
+                connection.key.cancel();
+                try {
+                    connection.channel.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing channel: " + e.getMessage());
+                }
+                if (connection.username != null) {
+                    registered.decrementAndGet();
+                    left.add(connection.username);
+                }
+            }
 
-            // Broadcast leave message
-            ChatMessage leaveMsg = new ChatMessage("SYSTEM",
-                    username + " left the chat",
-                    ChatMessage.MessageType.SYSTEM_MESSAGE);
-            broadcastMessage(leaveMsg, null);
-        }
+            for (String username : left) {
+                System.out.println("User disconnected: " + username);
 
-        try {
-            clientChannel.close();
-        } catch (IOException e) {
-            System.err.println("Error closing channel: " + e.getMessage());
+                // Broadcast leave message
+                broadcastNotice(this, username + " left the chat");
+            }
         }
-
-        key.cancel();
     }
 
     public static void main(String[] args) {
+        Metrics.start();
         try {
             ChatServer server = new ChatServer();
             server.start();
@@ -251,4 +430,3 @@ public class ChatServer {
         }
     }
 }
-
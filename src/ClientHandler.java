@@ -1,122 +1,166 @@
 package src;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
-import java.util.ArrayList;
-import java.util.List;
+import java.net.SocketException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
 
 public class ClientHandler implements Runnable {
     private Socket socket;
+    private final long acceptedNanos = System.nanoTime();
+    private final src.QuizEvents.Login loginEvent = new src.QuizEvents.Login();
 
     public ClientHandler(Socket socket) {
         this.socket = socket;
+        loginEvent.begin();
     }
 
     @Override
     public void run() {
-        try (
-                ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
-                ObjectInputStream in = new ObjectInputStream(socket.getInputStream())
-        ) {
+        try (src.QuizChannel channel = src.QuizChannel.accept(socket)) {
             // 1️⃣ Wait for login
-            Object first = in.readObject();
+            Object first = channel.receive();
             if (!(first instanceof src.LoginRequest login)) {
-                out.writeObject(new src.LoginResponse(false, "Invalid initial request."));
+                channel.send(new src.LoginResponse(false, "Invalid initial request."));
                 socket.close();
                 return;
             }
 
-            // 2️⃣ Teacher login
-            if (login.getRole().equalsIgnoreCase("teacher")
-                    && login.getUsername().equals("admin")
-                    && login.getPassword().equals("123")) {
+            // Passwords are hashed on the Authenticator pool; a session token is checked right here
+            src.Authenticator.Result auth = src.Authenticator.authenticate(login).join();
+            if (!auth.isSuccess()) {
+                src.Metrics.LOGIN_FAILURES.increment();
+                channel.send(new src.LoginResponse(false, auth.getMessage()));
+                src.QuizEvents.login(loginEvent, login.getUsername(), false, login.getToken() != null, false);
+                socket.close();
+                return;
+            }
+            String username = auth.getUsername();
 
-                out.writeObject(new src.LoginResponse(true, "Teacher login successful"));
-                out.flush();
+            // 2️⃣ Teacher login
+            if (auth.isTeacher()) {
+                channel.send(new src.LoginResponse(true, "Teacher login successful", auth.getToken()));
+                src.Metrics.LOGIN.recordSince(acceptedNanos);
+                src.Metrics.LOGINS.increment();
+                src.QuizEvents.login(loginEvent, username, true, login.getToken() != null, true);
                 System.out.println("Teacher logged in: " + socket.getInetAddress());
 
-                synchronized (src.QuizServer.teacherStreams) {
-                    src.QuizServer.teacherStreams.add(out);
+                src.TeacherOutbox outbox = src.QuizServer.addTeacher(channel, channel);
+
+                // Only catch-up requests and heartbeat echoes come back; EOF ends the session at once
+                try {
+                    while (true) {
+                        Object message = channel.receive();
+                        src.TeacherRegistry.onMessage(outbox, message);
+                        if (message instanceof src.ResultCatchUp catchUp) {
+                            src.QuizServer.sendCatchUp(outbox, catchUp.getAfterSeq());
+                        }
+                    }
+                } catch (EOFException | SocketException e) {
+                    System.out.println("Teacher disconnected: " + socket.getInetAddress());
+                } finally {
+                    src.QuizServer.removeTeacher(outbox);
                 }
-
-                synchronized (src.QuizServer.studentResults) {
-                    out.writeObject(new ArrayList<>(src.QuizServer.studentResults));
-                    out.flush();
-                }
-
-                while (!socket.isClosed()) Thread.sleep(5000);
-                return;
-            }
-
-            // 3️⃣ Student login
-            if (login.getRole().equalsIgnoreCase("student")
-                    && login.getPassword().equals("student")) {
-                out.writeObject(new src.LoginResponse(true, "Student login successful"));
-                out.flush();
-                System.out.println("Student logged in: " + login.getUsername());
-            } else {
-                out.writeObject(new src.LoginResponse(false, "Invalid credentials"));
-                out.flush();
-                socket.close();
                 return;
             }
 
-            // 4️⃣ Send quiz and start timer
-            List<src.Question> quiz = src.QuizData.getQuestions();
-            out.writeObject(quiz);
-            out.flush();
-
-            // Send timer start message (5 minutes)
-            out.writeObject("START_QUIZ:300");
-            out.flush();
-
-            // 📡 Trigger automatic UDP notifications for this student
-            UDPNotificationTrigger.triggerQuizStart(login.getUsername());
-            // Send "student started" notification only to teachers
-            UDPNotificationTrigger.sendQuizEvent("Student " + login.getUsername() + " has started the quiz!");
-            
-            System.out.println("🎯 Started 5-minute quiz for: " + login.getUsername() + " with automatic notifications");
-
-            // 5️⃣ Receive answers
-            Object received = in.readObject();
-            if (!(received instanceof int[] answers)) {
-                System.out.println("Unexpected data type from client.");
-                socket.close();
+            // 3️⃣ Student login: one attempt per quiz, resumed on reconnect until it is over
+            src.QuizPayload payload = src.QuizData.getPayload();
+            src.QuizSession session = src.QuizSessions.begin(username, payload);
+            if (session.isOver()) {
+                channel.send(new src.LoginResponse(false, src.QuizSessions.overMessage(session)));
+                src.QuizEvents.login(loginEvent, username, false, login.getToken() != null, false);
+                System.out.println("⛔ Login refused for " + username + ": attempt already over");
                 return;
             }
+            channel.send(new src.LoginResponse(true, "Student login successful", auth.getToken()));
+            long loggedInNanos = System.nanoTime();
+            src.Metrics.LOGIN.record(loggedInNanos - acceptedNanos);
+            src.Metrics.LOGINS.increment();
+            src.QuizEvents.login(loginEvent, username, false, login.getToken() != null, true);
+            src.QuizEvents.QuizDelivered deliveredEvent = new src.QuizEvents.QuizDelivered();
+            deliveredEvent.begin();
+            System.out.println("Student logged in: " + username);
+
+            // 4️⃣ Send quiz and start timer (or pick up an attempt cut off by a dropped connection)
+            boolean resumed = session.getConnections() > 1;
+            channel.sendQuiz(payload, session.getShuffle()); // Per-student order when shuffling
+
+            // Send timer start message (time left on this attempt)
+            channel.send("START_QUIZ:" + session.remainingSeconds());
+            long startedNanos = System.nanoTime();
+            src.Metrics.QUIZ_DELIVERY.record(startedNanos - loggedInNanos);
+            src.QuizEvents.quizDelivered(deliveredEvent, session, resumed);
+
+            // Token clients (reconnects) always get the saved answers; anyone else just gets the remaining time
+            if (login.getToken() != null) channel.send(new src.QuizResume(session.answers()));
+
+            if (resumed) {
+                System.out.println("🔄 Resumed quiz for: " + username + " (" + session.remainingSeconds() + "s left)");
+            } else {
+                // 📡 Trigger automatic UDP notifications for this student
+                UDPNotificationTrigger.triggerQuizStart(username);
+                // Send "student started" notification only to teachers
+                UDPNotificationTrigger.sendQuizEvent("Student " + username + " has started the quiz!");
 
-            // 6️⃣ Calculate score
-            int score = 0;
-            for (int i = 0; i < quiz.size() && i < answers.length; i++) {
-                if (answers[i] == quiz.get(i).getCorrectOption()) score++;
-            }
-
-            String resultLine = "Student " + login.getUsername() + " scored: " + score + "/" + quiz.size();
-
-            // 7️⃣ Save result and update teacher views
-            synchronized (src.QuizServer.studentResults) {
-                src.QuizServer.studentResults.add(resultLine);
+                System.out.println("🎯 Started 5-minute quiz for: " + username + " with automatic notifications");
             }
 
-            synchronized (src.QuizServer.teacherStreams) {
-                for (ObjectOutputStream teacherOut : src.QuizServer.teacherStreams) {
+            // 5️⃣ Receive answers: checkpointed one by one, then the final int[]. If the deadline
+            // scores the attempt first, the blocked receive() is ended and the score sent instead.
+            CompletableFuture<Integer> expired = new CompletableFuture<>();
+            IntConsumer expiryReply = score -> {
+                if (score == src.SubmissionPipeline.SCORE_FAILED) return; // Still unsubmitted, keep answering
+                expired.complete(score);
+                try { socket.shutdownInput(); } catch (IOException ignored) {}
+            };
+            session.setExpiryReply(expiryReply);
+            int score;
+            try {
+                while (true) {
+                    int[] answers = null;
                     try {
-                        teacherOut.writeObject(new ArrayList<>(src.QuizServer.studentResults));
-                        teacherOut.flush();
-                    } catch (IOException ignored) {}
+                        while (answers == null) {
+                            Object received = channel.receive();
+                            if (received instanceof src.AnswerUpdate update) {
+                                src.Metrics.ANSWER_UPDATES.increment();
+                                session.record(update.getQuestion(), update.getAnswer());
+                                src.QuizEvents.answerReceived(session, update.getQuestion(), startedNanos);
+                            } else if (received instanceof int[] submitted) {
+                                src.Metrics.ANSWERING.recordSince(startedNanos);
+                                src.QuizEvents.answerReceived(session, -1, startedNanos);
+                                answers = submitted;
+                            } else {
+                                System.out.println("Unexpected data type from client.");
+                                socket.close();
+                                return;
+                            }
+                        }
+                    } catch (IOException e) {
+                        if (!expired.isDone()) throw e;
+                    }
+                    if (expired.isDone()) {
+                        System.out.println("⏰ Time is up for " + username + ", sending the checkpoint score");
+                        score = expired.join();
+                        break;
+                    }
+
+                    // 6️⃣ Calculate score, 7️⃣ save result and update teacher views (SubmissionPipeline stages)
+                    CompletableFuture<Integer> scored = new CompletableFuture<>();
+                    src.QuizSessions.submit(session, answers, scored::complete);
+                    score = scored.join();
+                    if (score != src.SubmissionPipeline.SCORE_FAILED) break;
+                    // Nothing was recorded and the attempt is unsubmitted; the student may send it again
+                    channel.send(src.QuizSessions.SCORE_ERROR);
                 }
+            } finally {
+                session.clearExpiryReply(expiryReply);
             }
 
             // 8️⃣ Send result to student
-            out.writeObject(Integer.valueOf(score));
-            out.flush();
-            System.out.println(resultLine);
-            
-            // 📡 Notify score only to this student and teachers (not other students)
-            UDPNotificationTrigger.sendQuizEvent("SCORE:" + login.getUsername() + ":" + 
-                login.getUsername() + " finished the quiz! Score: " + score + "/" + quiz.size());
+            channel.send(score);
 
         } catch (Exception e) {
             System.out.println("Error with client " + socket.getInetAddress() + ": " + e.getMessage());
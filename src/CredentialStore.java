@@ -0,0 +1,25 @@
+package src;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Where login credentials come from. Implementations only look up hashes;
+ * the Authenticator does the (slow) verification off the I/O threads.
+ */
+public interface CredentialStore {
+
+    /**
+     * Stored hash for this role and username, or null if there is no such account
+     */
+    PasswordHash find(String role, String username);
+
+    /**
+     * The store picked by -Dquiz.credentials=<file>, or the built-in demo accounts
+     */
+    static CredentialStore fromConfig() throws IOException {
+        String path = System.getProperty("quiz.credentials");
+        if (path == null) return FileCredentialStore.demo();
+        return FileCredentialStore.load(new File(path));
+    }
+}
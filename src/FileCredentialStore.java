@@ -0,0 +1,78 @@
+package src;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Credentials kept in a text file, one account per line:
+ *   role username pbkdf2$iterations$salt$hash
+ * A username of "*" matches any name with that role (the classroom-wide
+ * student password). Lines starting with # are comments.
+ *
+ * Add an account with: java src.FileCredentialStore <file> <role> <username> <password>
+ */
+public class FileCredentialStore implements CredentialStore {
+    private static final String ANY_USER = "*";
+
+    private final Map<String, PasswordHash> accounts;
+
+    private FileCredentialStore(Map<String, PasswordHash> accounts) {
+        this.accounts = accounts;
+    }
+
+    public static FileCredentialStore load(File file) throws IOException {
+        Map<String, PasswordHash> accounts = new HashMap<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNo = 0;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                String[] parts = line.split("\\s+");
+                if (parts.length != 3) throw new IOException(file + ":" + lineNo + ": expected role username hash");
+                try {
+                    accounts.put(key(parts[0], parts[1]), PasswordHash.parse(parts[2]));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + ":" + lineNo + ": " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("🔐 Loaded " + accounts.size() + " accounts from " + file);
+        return new FileCredentialStore(accounts);
+    }
+
+    /**
+     * The original demo accounts (teacher admin/123, any student with password "student"), hashed at startup
+     */
+    public static FileCredentialStore demo() {
+        Map<String, PasswordHash> accounts = new HashMap<>();
+        accounts.put(key("teacher", "admin"), PasswordHash.create("123"));
+        accounts.put(key("student", ANY_USER), PasswordHash.create("student"));
+        return new FileCredentialStore(accounts);
+    }
+
+    @Override
+    public PasswordHash find(String role, String username) {
+        PasswordHash hash = accounts.get(key(role, username));
+        return hash != null ? hash : accounts.get(key(role, ANY_USER));
+    }
+
+    private static String key(String role, String username) {
+        return role.toLowerCase() + " " + username;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.out.println("Usage: java src.FileCredentialStore <file> <role> <username> <password>");
+            return;
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(args[0], true), StandardCharsets.UTF_8)) {
+            out.write(args[1].toLowerCase() + " " + args[2] + " " + PasswordHash.create(args[3]).encode() + "\n");
+        }
+        System.out.println("Added " + args[1] + " " + args[2] + " to " + args[0]);
+    }
+}
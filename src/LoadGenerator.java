@@ -0,0 +1,451 @@
+package src;
+
+import java.io.*;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless load generator: simulated students and teachers speaking the same
+ * protocols as QuizClient, ChatClientPanel and the UDP listeners, all on localhost.
+ *
+ * Each student logs in, receives the quiz, answers every question after a think
+ * time (streaming AnswerUpdates like QuizClient), optionally chats and listens
+ * for UDP notifications, then submits. With load.burst the submissions are held
+ * until every student is ready, like a class hitting the deadline together.
+ * Teachers watch the results feed to time how fast scores reach a dashboard.
+ *
+ * Run against running servers, or start them in-process with -Dload.embedded=true:
+ *   java -Dload.embedded=true -Dload.students=500 -Dload.teachers=2 src.LoadGenerator
+ * Exits with status 1 if any simulated client failed, so it can gate a CI job.
+ */
+public class LoadGenerator {
+    static final String HOST = System.getProperty("load.host", "localhost");
+    static final int STUDENTS = Integer.getInteger("load.students", 100);
+    static final int TEACHERS = Integer.getInteger("load.teachers", 2);
+    static final int RAMP_SECONDS = Integer.getInteger("load.rampSeconds", 5);
+    static final int THINK_MS = Integer.getInteger("load.thinkMs", 200);
+    static final boolean BURST = Boolean.parseBoolean(System.getProperty("load.burst", "true"));
+    static final String PROTOCOL = System.getProperty("load.protocol", "mixed"); // binary, object or mixed
+    static final boolean CHAT = Boolean.parseBoolean(System.getProperty("load.chat", "true"));
+    static final boolean UDP = Boolean.getBoolean("load.udp"); // Needs a running AutoUDPNotifier
+    static final boolean EMBEDDED = Boolean.getBoolean("load.embedded");
+    static final String STUDENT_PASSWORD = System.getProperty("load.studentPassword", "student");
+    static final String TEACHER_USER = System.getProperty("load.teacherUser", "admin");
+    static final String TEACHER_PASSWORD = System.getProperty("load.teacherPassword", "123");
+    static final int TIMEOUT_MS = Integer.getInteger("load.timeoutSeconds", 60) * 1000;
+
+    private static final int UDP_NOTIFIER_PORT = 5010;
+    private static final String CHAT_TAG = "load-chat:";
+
+    // Usernames are unique per run so a rerun never resumes the previous run's attempts
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, Long> submitNanos = new ConcurrentHashMap<>();
+    private final AtomicInteger scored = new AtomicInteger();
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+    private final CountDownLatch readyToSubmit = new CountDownLatch(STUDENTS);
+
+    private final Stat login = new Stat("login");
+    private final Stat quiz = new Stat("quiz delivery");
+    private final Stat submit = new Stat("submit->score");
+    private final Stat teacher = new Stat("teacher update");
+    private final Stat chat = new Stat("chat broadcast");
+    private final Stat udpRegister = new Stat("udp register");
+    private final Stat udpScore = new Stat("udp score notice");
+
+    public static void main(String[] args) throws Exception {
+        if (EMBEDDED) startServers();
+
+        LoadGenerator generator = new LoadGenerator();
+        boolean ok = generator.run();
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static void startServers() throws IOException, InterruptedException {
+        Thread quizServer = new Thread(() -> QuizServer.main(new String[]{}), "QuizServerThread");
+        quizServer.setDaemon(true);
+        quizServer.start();
+        Thread chatServer = new Thread(() -> ChatServer.main(new String[]{}), "ChatServerThread");
+        chatServer.setDaemon(true);
+        chatServer.start();
+
+        // Demo password hashing runs before the quiz port opens
+        long until = System.currentTimeMillis() + 30_000;
+        while (true) {
+            try {
+                new Socket(HOST, QuizServer.PORT).close();
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() >= until) {
+                    throw new IOException("Embedded quiz server did not open port " + QuizServer.PORT + " within 30s", e);
+                }
+                Thread.sleep(200);
+            }
+        }
+    }
+
+    boolean run() throws Exception {
+        System.out.println("🚦 Load: " + STUDENTS + " students, " + TEACHERS + " teachers, ramp " + RAMP_SECONDS
+                + "s, think " + THINK_MS + "ms, burst=" + BURST + ", protocol=" + PROTOCOL
+                + ", chat=" + CHAT + ", udp=" + UDP);
+        long start = System.nanoTime();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> teachers = new java.util.ArrayList<>();
+            CountDownLatch teachersSubscribed = new CountDownLatch(TEACHERS);
+            for (int i = 0; i < TEACHERS; i++) {
+                int id = i;
+                teachers.add(clients.submit(() -> runTeacher(id, teachersSubscribed)));
+            }
+            teachersSubscribed.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+            List<Future<?>> students = new java.util.ArrayList<>();
+            for (int i = 0; i < STUDENTS; i++) {
+                int id = i;
+                long delayMs = STUDENTS > 1 ? (long) RAMP_SECONDS * 1000 * i / STUDENTS : 0;
+                students.add(clients.submit(() -> {
+                    try {
+                        Thread.sleep(delayMs);
+                        runStudent(id);
+                    } finally {
+                        readyToSubmit.countDown(); // A failed student never holds up the burst
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> student : students) student.get();
+
+            // Give the dashboards a moment to see the last scores, then stop them
+            long until = System.currentTimeMillis() + 10_000;
+            while (teacher.count() < (long) scored.get() * TEACHERS && System.currentTimeMillis() < until) {
+                Thread.sleep(50);
+            }
+            finished.set(true);
+            for (Future<?> t : teachers) t.get();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        report(seconds);
+        return login.errors() + quiz.errors() + submit.errors() + teacher.errors()
+                + chat.errors() + udpRegister.errors() + udpScore.errors() == 0;
+    }
+
+    private String studentName(int id) {
+        return "load-" + runId + "-" + id;
+    }
+
+    private boolean binaryFor(int id) {
+        if (PROTOCOL.equalsIgnoreCase("object")) return false;
+        if (PROTOCOL.equalsIgnoreCase("binary")) return true;
+        return id % 2 == 0;
+    }
+
+    /**
+     * One student: login, quiz, answers with think time, optional chat and UDP, submit
+     */
+    private void runStudent(int id) {
+        String username = studentName(id);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        DatagramSocket udp = null;
+        Socket chatSocket = null;
+
+        try (Socket socket = new Socket()) {
+            if (UDP) udp = registerUdp(username);
+
+            socket.connect(new InetSocketAddress(HOST, QuizServer.PORT), TIMEOUT_MS);
+            socket.setSoTimeout(TIMEOUT_MS);
+            QuizChannel channel = QuizChannel.connect(socket, binaryFor(id));
+
+            // 1️⃣ Login
+            long t0 = System.nanoTime();
+            channel.send(new LoginRequest(username, STUDENT_PASSWORD, "student"));
+            LoginResponse response = (LoginResponse) channel.receive();
+            if (!response.isSuccess()) {
+                login.error("login refused for " + username + ": " + response.getMessage());
+                return;
+            }
+            long t1 = System.nanoTime();
+            login.record(t1 - t0);
+
+            // 2️⃣ Quiz and timer start
+            List<?> questions = (List<?>) channel.receive();
+            Object start = channel.receive();
+            if (!(start instanceof String s) || !s.startsWith("START_QUIZ:")) {
+                quiz.error("expected START_QUIZ, got " + start);
+                return;
+            }
+            quiz.record(System.nanoTime() - t1);
+
+            if (CHAT) chatSocket = joinChat(response.getToken(), false);
+
+            // 3️⃣ Answer one question at a time, checkpointing each like QuizClient does
+            int[] answers = new int[questions.size()];
+            for (int q = 0; q < answers.length; q++) {
+                think(random);
+                int options = ((Question) questions.get(q)).getOptions().length;
+                answers[q] = random.nextInt(Math.max(1, options));
+                channel.send(new AnswerUpdate(q, answers[q]));
+
+                if (chatSocket != null && q == answers.length / 2) {
+                    sendChat(chatSocket, username, CHAT_TAG + System.nanoTime());
+                }
+            }
+
+            if (BURST) {
+                readyToSubmit.countDown();
+                readyToSubmit.await();
+            }
+
+            // 4️⃣ Submit and wait for the score
+            long submitted = System.nanoTime();
+            submitNanos.put(username, submitted);
+            channel.send(answers);
+            Object score = channel.receive();
+            if (!(score instanceof Integer)) {
+                submit.error("expected a score, got " + score);
+                return;
+            }
+            submit.record(System.nanoTime() - submitted);
+            scored.incrementAndGet();
+
+            if (udp != null) awaitUdp(udp, username + " finished the quiz", submitted, udpScore);
+        } catch (Exception e) {
+            submit.error(username + ": " + e);
+        } finally {
+            if (udp != null) udp.close();
+            closeQuietly(chatSocket);
+        }
+    }
+
+    /**
+     * One teacher: subscribe to the results feed and time each new line against its student's submit
+     */
+    private void runTeacher(int id, CountDownLatch subscribed) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(HOST, QuizServer.PORT), TIMEOUT_MS);
+            socket.setSoTimeout(200); // Wake up to check whether the run is over
+            QuizChannel channel = QuizChannel.connect(socket, true);
+            channel.send(new LoginRequest(TEACHER_USER, TEACHER_PASSWORD, "teacher"));
+
+            LoginResponse response = (LoginResponse) receive(channel);
+            if (response == null || !response.isSuccess()) {
+                teacher.error("teacher login refused" + (response != null ? ": " + response.getMessage() : ""));
+                return;
+            }
+
+            Socket chatObserver = CHAT ? joinChat(response.getToken(), true) : null;
+            subscribed.countDown();
+
+            long lastSeq = 0;
+            while (!finished.get()) {
+                Object message = receive(channel);
+                if (message instanceof ResultBatch batch) {
+                    if (!batch.isSnapshot() && batch.getFirstSeq() > lastSeq + 1) {
+                        channel.send(new ResultCatchUp(lastSeq)); // Outbox overflowed, ask for the gap
+                    }
+                    if (!batch.isSnapshot()) timeLines(batch.getLines());
+                    lastSeq = Math.max(lastSeq, batch.getLastSeq());
+                    if (batch.isMore()) channel.send(new ResultCatchUp(lastSeq)); // Next page
+                } else if (TeacherRegistry.HEARTBEAT.equals(message)) {
+                    channel.send(message);
+                }
+            }
+            closeQuietly(chatObserver);
+        } catch (Exception e) {
+            teacher.error("teacher " + id + ": " + e);
+        } finally {
+            subscribed.countDown();
+        }
+    }
+
+    private void timeLines(List<String> lines) {
+        long now = System.nanoTime();
+        for (String line : lines) {
+            // "Student <name> scored: a/b"
+            int end = line.indexOf(" scored:");
+            if (!line.startsWith("Student ") || end < 0) continue;
+            Long submitted = submitNanos.get(line.substring(8, end));
+            if (submitted != null) teacher.record(now - submitted);
+        }
+    }
+
+    /** Next message, or null if nothing arrived within the socket timeout */
+    private static Object receive(QuizChannel channel) throws IOException, ClassNotFoundException {
+        try {
+            return channel.receive();
+        } catch (SocketTimeoutException e) {
+            return null;
+        }
+    }
+
+    private static void think(ThreadLocalRandom random) throws InterruptedException {
+        if (THINK_MS <= 0) return;
+        // Exponential think time, capped so one unlucky draw doesn't stall the run
+        double delay = -THINK_MS * Math.log(1 - random.nextDouble());
+        Thread.sleep((long) Math.min(delay, THINK_MS * 10.0));
+    }
+
+    // ---- Chat (ChatServer's protocol: length-prefixed serialized objects, see ChatFrames) ----
+
+    /**
+     * Register with the chat server using the quiz session token. Every connection keeps
+     * reading so the server never sees a full socket; observers also time tagged messages.
+     */
+    private Socket joinChat(String token, boolean observe) {
+        try {
+            Socket socket = new Socket(HOST, ChatServer.CHAT_PORT);
+            socket.getOutputStream().write(ChatFrames.encode(ChatServer.AUTH_PREFIX + token));
+            // Like a GUI client joining: one page of recent history
+            socket.getOutputStream().write(ChatFrames.encode(new ChatHistoryRequest(0, ChatHistory.MAX_PAGE)));
+            socket.getOutputStream().flush();
+            Thread.ofVirtual().start(() -> {
+                if (observe) observeChat(socket); else drain(socket);
+            });
+            return socket;
+        } catch (IOException e) {
+            chat.error("chat connect: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void sendChat(Socket socket, String username, String content) {
+        try {
+            socket.getOutputStream().write(ChatFrames.encode(new ChatMessage(username, content, ChatMessage.MessageType.USER_MESSAGE)));
+            socket.getOutputStream().flush();
+        } catch (IOException e) {
+            chat.error("chat send: " + e.getMessage());
+        }
+    }
+
+    private static void drain(Socket socket) {
+        byte[] discard = new byte[8192];
+        try {
+            InputStream in = socket.getInputStream();
+            while (in.read(discard) >= 0) { }
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Teacher-side chat connection: one frame per message
+     */
+    private void observeChat(Socket socket) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            while (true) {
+                Object obj = ChatFrames.read(in);
+                if (obj instanceof ChatMessage message && message.getContent().startsWith(CHAT_TAG)) {
+                    chat.record(System.nanoTime() - Long.parseLong(message.getContent().substring(CHAT_TAG.length())));
+                }
+            }
+        } catch (IOException | ClassNotFoundException | NumberFormatException ignored) {
+            // Closed at the end of the run
+        }
+    }
+
+    // ---- UDP (AutoUDPNotifier registration and score notices) ----
+
+    private DatagramSocket registerUdp(String username) throws IOException {
+        DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        byte[] data = ("REGISTER:" + username + ":" + socket.getLocalPort()).getBytes(StandardCharsets.UTF_8);
+        long sent = System.nanoTime();
+        socket.send(new DatagramPacket(data, data.length, InetAddress.getLoopbackAddress(), UDP_NOTIFIER_PORT));
+        awaitUdp(socket, "Welcome " + username, sent, udpRegister);
+        return socket;
+    }
+
+    private static void awaitUdp(DatagramSocket socket, String expected, long sentNanos, Stat stat) throws IOException {
+        byte[] buffer = new byte[1024];
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            socket.setSoTimeout((int) Math.max(1, deadline - System.currentTimeMillis()));
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+            } catch (SocketTimeoutException e) {
+                break;
+            }
+            if (new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8).contains(expected)) {
+                stat.record(System.nanoTime() - sentNanos);
+                return;
+            }
+        }
+        stat.error("no UDP \"" + expected + "\" within 5s");
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void report(double seconds) {
+        // Built first and printed at once, so embedded servers' logging can't split the table
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%n📊 %d students in %.1fs, %.1f submissions/s%n", STUDENTS, seconds, scored.get() / seconds));
+        table.append(String.format("%-18s %8s %7s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (Stat stat : new Stat[]{login, quiz, submit, teacher, chat, udpRegister, udpScore}) {
+            if (stat.count() > 0 || stat.errors() > 0) table.append(stat.row(seconds));
+        }
+        System.out.print(table);
+        System.out.flush();
+    }
+
+    /**
+     * Latency samples for one operation; percentiles are computed once at the end
+     */
+    private static final class Stat {
+        private final String name;
+        private long[] samples = new long[1024];
+        private int count = 0;
+        private final AtomicInteger errors = new AtomicInteger();
+
+        Stat(String name) {
+            this.name = name;
+        }
+
+        synchronized void record(long nanos) {
+            if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+            samples[count++] = nanos;
+        }
+
+        void error(String message) {
+            // Print the first few so a failing CI run says why
+            if (errors.incrementAndGet() <= 5) System.out.println("❌ " + name + ": " + message);
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        int errors() {
+            return errors.get();
+        }
+
+        synchronized String row(double seconds) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return String.format("%-18s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, count, errors(), count / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+}
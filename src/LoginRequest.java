@@ -2,9 +2,12 @@ package src;
 import java.io.Serializable;
 
 public class LoginRequest implements Serializable {
+    private static final long serialVersionUID = -965058574720079856L; // Unchanged by the token field
+
     private String username;
     private String password;
     private String role;
+    private String token; // Session token from an earlier login; replaces the password
 
     public LoginRequest(String username, String password, String role) {
         this.username = username;
@@ -12,7 +15,17 @@ public class LoginRequest implements Serializable {
         this.role = role;
     }
 
+    /**
+     * Log in again with the session token from a previous LoginResponse
+     */
+    public static LoginRequest withToken(String token, String role) {
+        LoginRequest login = new LoginRequest("", "", role);
+        login.token = token;
+        return login;
+    }
+
     public String getUsername() { return username; }
     public String getPassword() { return password; }
     public String getRole() { return role; }
+    public String getToken() { return token; }
 }
\ No newline at end of file
@@ -2,14 +2,23 @@ package src;
 import java.io.Serializable;
 
 public class LoginResponse implements Serializable {
+    private static final long serialVersionUID = -6926371143152174049L; // Unchanged by the token field
+
     private boolean success;
     private String message;
+    private String token; // Signed session token, set on success
 
     public LoginResponse(boolean success, String message) {
         this.success = success;
         this.message = message;
     }
 
+    public LoginResponse(boolean success, String message, String token) {
+        this(success, message);
+        this.token = token;
+    }
+
     public boolean isSuccess() { return success; }
     public String getMessage() { return message; }
+    public String getToken() { return token; }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package src;
+
+import java.io.IOException;
+
+/**
+ * Anything a quiz message can be pushed to (a client connection or teacher view)
+ */
+public interface MessageSink {
+    void send(Object message) throws IOException;
+}
@@ -0,0 +1,243 @@
+package src;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Latency histograms, counters and gauges for the quiz, chat and UDP services, served
+ * in Prometheus text format on http://localhost:<quiz.metricsPort>/metrics.
+ *
+ * Recording is a bucket search over a fixed bounds array plus atomic adds:
+ * no locks and no allocation, so it is safe on reactor and pipeline threads.
+ * The endpoint is off unless -Dquiz.metricsPort is set; each server process
+ * (quiz, chat, UDP notifier, quick poll) needs its own port.
+ */
+public class Metrics {
+    public static final int PORT = Integer.getInteger("quiz.metricsPort", 0);
+
+    // Network round trips and server work: 50 µs .. 10 s
+    private static final double[] LATENCY_BOUNDS = {
+            0.00005, 0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05,
+            0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    // Time a student spends answering: 1 s .. 10 min
+    private static final double[] ANSWER_BOUNDS = {1, 5, 15, 30, 60, 120, 180, 240, 300, 600};
+
+    // Quiz sessions (ClientHandler and NioQuizServer)
+    public static final Histogram LOGIN = new Histogram("quiz_login_seconds",
+            "Accept to login response sent", LATENCY_BOUNDS);
+    public static final Histogram QUIZ_DELIVERY = new Histogram("quiz_delivery_seconds",
+            "Login response to quiz and START_QUIZ sent", LATENCY_BOUNDS);
+    public static final Histogram ANSWERING = new Histogram("quiz_answering_seconds",
+            "START_QUIZ sent to final answers read", ANSWER_BOUNDS);
+    public static final Counter LOGINS = new Counter("quiz_logins_total", "Successful logins");
+    public static final Counter LOGIN_FAILURES = new Counter("quiz_login_failures_total", "Refused logins");
+    public static final Counter ANSWER_UPDATES = new Counter("quiz_answer_updates_total", "Checkpointed single answers");
+
+    // Submission pipeline (SubmissionPipeline)
+    public static final Histogram SCORING = new Histogram("quiz_scoring_seconds",
+            "Submission published to scored, including ring queueing", LATENCY_BOUNDS);
+    public static final Histogram SUBMIT = new Histogram("quiz_submit_seconds",
+            "Submission published to score handed back to the connection", LATENCY_BOUNDS);
+    public static final Histogram TEACHER_FANOUT = new Histogram("quiz_teacher_fanout_seconds",
+            "Store, journal and teacher publish of one recorded batch", LATENCY_BOUNDS);
+    public static final Counter SUBMISSIONS = new Counter("quiz_submissions_total", "Submissions through the pipeline");
+    public static final Counter SCORING_FAILURES = new Counter("quiz_scoring_failures_total",
+            "Submissions whose scoring threw and were left unsubmitted");
+    public static final Counter RECORD_FAILURES = new Counter("quiz_record_failures_total",
+            "Scored submissions the record stage could not store, left unsubmitted");
+    public static final Counter TEACHER_UPDATES = new Counter("quiz_teacher_updates_total",
+            "Messages written to teacher views");
+    public static final Counter TEACHER_DROPPED = new Counter("quiz_teacher_dropped_total",
+            "Queued teacher updates dropped on overflow");
+    public static final Counter TEACHER_RESYNCS = new Counter("quiz_teacher_resyncs_total",
+            "Teacher views that overflowed and were sent a catch-up");
+    public static final Counter RECORD_BATCHES = new Counter("quiz_record_batches_total", "Batches appended by the record stage");
+
+    // Chat (ChatServer)
+    public static final Histogram CHAT_BROADCAST = new Histogram("chat_broadcast_seconds",
+            "Chat message read to broadcast written to every client", LATENCY_BOUNDS);
+    public static final Counter CHAT_MESSAGES = new Counter("chat_messages_total", "Chat messages broadcast");
+    public static final Counter CHAT_SLOW_DISCONNECTS = new Counter("chat_slow_disconnects_total",
+            "Chat clients dropped for letting their outbound queue overflow");
+
+    // UDP (notification trigger, AutoUDPNotifier, UDPNotificationServer, UDPQuickPoll)
+    public static final Counter UDP_SENT = new Counter("udp_packets_sent_total", "UDP datagrams sent");
+    public static final Counter UDP_RECEIVED = new Counter("udp_packets_received_total", "UDP datagrams received");
+
+    private static final List<Histogram> HISTOGRAMS = List.of(LOGIN, QUIZ_DELIVERY, ANSWERING,
+            SCORING, SUBMIT, TEACHER_FANOUT, CHAT_BROADCAST);
+    private static final List<Counter> COUNTERS = List.of(LOGINS, LOGIN_FAILURES, ANSWER_UPDATES,
+            SUBMISSIONS, SCORING_FAILURES, RECORD_FAILURES, TEACHER_UPDATES, TEACHER_DROPPED, TEACHER_RESYNCS, RECORD_BATCHES, CHAT_MESSAGES, CHAT_SLOW_DISCONNECTS, UDP_SENT, UDP_RECEIVED);
+
+    // Registered by the server that owns the values, so other processes don't load its classes
+    private static final List<Gauge> GAUGES = new CopyOnWriteArrayList<>();
+
+    private static HttpServer server;
+
+    /**
+     * Export a value read on every scrape (queue depths, open sessions); a name registers once
+     */
+    public static synchronized void gauge(String name, String help, DoubleSupplier value) {
+        for (Gauge gauge : GAUGES) {
+            if (gauge.name.equals(name)) return;
+        }
+        GAUGES.add(new Gauge(name, help, value));
+    }
+
+    /**
+     * Serve /metrics on localhost if -Dquiz.metricsPort is set (once per process)
+     */
+    public static synchronized void start() {
+        if (PORT <= 0 || server != null) return;
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", PORT), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = render().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            System.out.println("📈 Metrics on http://localhost:" + PORT + "/metrics");
+        } catch (IOException e) {
+            System.out.println("⚠️ Metrics endpoint not started on port " + PORT + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Everything in Prometheus text exposition format
+     */
+    public static String render() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Histogram histogram : HISTOGRAMS) histogram.render(out);
+        for (Counter counter : COUNTERS) counter.render(out);
+        for (Gauge gauge : GAUGES) gauge.render(out);
+        return out.toString();
+    }
+
+    /**
+     * Fixed-bucket latency histogram; record() is lock-free and allocation-free
+     */
+    public static final class Histogram {
+        private final String name;
+        private final String help;
+        private final long[] boundsNanos;
+        private final String[] labels; // Bounds as plain decimals for le=""
+        private final AtomicLongArray buckets; // Last bucket is +Inf
+        private final AtomicLong sumNanos = new AtomicLong();
+
+        Histogram(String name, String help, double[] boundsSeconds) {
+            this.name = name;
+            this.help = help;
+            this.boundsNanos = new long[boundsSeconds.length];
+            this.labels = new String[boundsSeconds.length];
+            for (int i = 0; i < boundsSeconds.length; i++) {
+                boundsNanos[i] = (long) (boundsSeconds[i] * TimeUnit.SECONDS.toNanos(1));
+                labels[i] = BigDecimal.valueOf(boundsSeconds[i]).toPlainString();
+            }
+            this.buckets = new AtomicLongArray(boundsSeconds.length + 1);
+        }
+
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            int lo = 0, hi = boundsNanos.length; // First bound >= nanos, or the +Inf bucket
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (boundsNanos[mid] < nanos) lo = mid + 1; else hi = mid;
+            }
+            buckets.incrementAndGet(lo);
+            sumNanos.addAndGet(nanos);
+        }
+
+        /** Record the time since startNanos (a System.nanoTime() value) */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long count() {
+            long total = 0;
+            for (int i = 0; i < buckets.length(); i++) total += buckets.get(i);
+            return total;
+        }
+
+        void render(StringBuilder out) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(" histogram\n");
+            long cumulative = 0;
+            for (int i = 0; i < labels.length; i++) {
+                cumulative += buckets.get(i);
+                out.append(name).append("_bucket{le=\"").append(labels[i]).append("\"} ").append(cumulative).append('\n');
+            }
+            cumulative += buckets.get(labels.length);
+            out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+            out.append(name).append("_sum ").append(sumNanos.get() / 1e9).append('\n');
+            out.append(name).append("_count ").append(cumulative).append('\n');
+        }
+    }
+
+    /**
+     * Monotonic counter
+     */
+    public static final class Counter {
+        private final String name;
+        private final String help;
+        private final AtomicLong value = new AtomicLong();
+
+        Counter(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        public void add(long n) {
+            value.addAndGet(n);
+        }
+
+        public long get() {
+            return value.get();
+        }
+
+        void render(StringBuilder out) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(value.get()).append('\n');
+        }
+    }
+
+    /**
+     * Current value of something owned elsewhere, read when rendered
+     */
+    static final class Gauge {
+        private final String name;
+        private final String help;
+        private final DoubleSupplier value;
+
+        Gauge(String name, String help, DoubleSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.value = value;
+        }
+
+        void render(StringBuilder out) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(" gauge\n");
+            out.append(name).append(' ').append(value.getAsDouble()).append('\n');
+        }
+    }
+}
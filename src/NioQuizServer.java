@@ -0,0 +1,723 @@
+package src;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * NIO-based Quiz Server engine (-Dquiz.engine=nio)
+ * One acceptor hands connections to a few reactor threads, each driving the
+ * login -> quiz delivery -> answer submission state machine of many students
+ * with a Selector, so an idle student costs a buffer instead of a parked thread.
+ * Speaks both the binary QuizProtocol and the legacy ObjectOutputStream
+ * protocol, picked from the first bytes like QuizChannel.accept does.
+ */
+public class NioQuizServer {
+    public static final int REACTOR_COUNT = Integer.getInteger("quiz.reactors",
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    private static final int MAX_INBOUND_BYTES = 64 * 1024;
+    // Writers other than the reactor (teacher outboxes) wait while more than this is unsent
+    private static final long MAX_PENDING_BYTES = 256 * 1024;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Reactor[] reactors;
+    private int nextReactor = 0;
+
+    private enum State {
+        AWAIT_LOGIN,  // Waiting for the LoginRequest
+        AUTHENTICATING, // Password being verified on the Authenticator pool
+        TEACHER,      // Subscribed to result updates
+        IN_QUIZ,      // Quiz sent, waiting for the int[] answers
+        SCORING,      // Answers in the SubmissionPipeline, waiting for the score
+        DONE          // Score sent, closing once flushed
+    }
+
+    public NioQuizServer() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(QuizServer.PORT), QuizServer.ACCEPT_BACKLOG);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        reactors = new Reactor[REACTOR_COUNT];
+        for (int i = 0; i < reactors.length; i++) {
+            reactors[i] = new Reactor();
+        }
+
+        System.out.println("Quiz Server started on port " + QuizServer.PORT + " (NIO mode, "
+                + REACTOR_COUNT + " reactors)");
+    }
+
+    public void start() {
+        for (int i = 0; i < reactors.length; i++) {
+            Thread t = new Thread(reactors[i], "QuizReactor-" + i);
+            reactors[i].thread = t;
+            t.start();
+        }
+
+        try {
+            while (true) {
+                selector.select();
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+
+                    if (key.isValid() && key.isAcceptable()) {
+                        handleAccept();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Accept new connections and spread them round-robin over the reactors
+     */
+    private void handleAccept() throws IOException {
+        SocketChannel clientChannel;
+        while ((clientChannel = serverChannel.accept()) != null) {
+            clientChannel.configureBlocking(false);
+            System.out.println("Client connected from " + clientChannel.getRemoteAddress());
+            reactors[nextReactor].register(clientChannel);
+            nextReactor = (nextReactor + 1) % reactors.length;
+        }
+    }
+
+    /**
+     * Selector loop owning a subset of the sessions
+     */
+    private static class Reactor implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(8192);
+        private Thread thread;
+
+        Reactor() throws IOException {
+            selector = Selector.open();
+        }
+
+        /**
+         * Run a task on this reactor's thread (safe to call from any thread)
+         */
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    Session session = new Session(this, channel);
+                    session.key = channel.register(selector, SelectionKey.OP_READ, session);
+                } catch (IOException e) {
+                    System.err.println("Error registering quiz client: " + e.getMessage());
+                    try { channel.close(); } catch (IOException ignored) {}
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+
+                    Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                    while (iterator.hasNext()) {
+                        SelectionKey key = iterator.next();
+                        iterator.remove();
+
+                        Session session = (Session) key.attachment();
+                        if (!key.isValid()) continue;
+
+                        try {
+                            if (key.isWritable()) {
+                                session.flushOutbound();
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                session.onReadable(readBuffer);
+                            }
+                        } catch (Exception e) {
+                            System.out.println("Error with client " + session.remoteAddress() + ": " + e.getMessage());
+                            session.close();
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("Quiz reactor error: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Per-connection state for one student or teacher
+     */
+    private static class Session implements MessageSink {
+        private final Reactor reactor;
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private State state = State.AWAIT_LOGIN;
+        private volatile boolean closed = false;
+        private boolean closeAfterFlush = false;
+
+        // Protocol is unknown until the first four bytes arrive
+        private boolean handshakeDone = false;
+        private boolean binary = false;
+
+        // Inbound bytes: binary frames are consumed as they complete; a legacy
+        // serialization stream goes to legacyIn once the protocol is known
+        private byte[] inbound = new byte[512];
+        private int inboundLength = 0;
+        private LegacyInput legacyIn; // Legacy protocol only
+
+        // Outbound frames, filled from any thread and drained by the reactor
+        private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+        private final AtomicLong pendingBytes = new AtomicLong();
+        private final ReentrantLock drainLock = new ReentrantLock();
+        private final Condition drained = drainLock.newCondition();
+        private TeacherOutbox outbox;
+        private ObjectOutputStream out; // Legacy protocol only
+
+        private String username;
+        private QuizSession quizSession;
+        private final IntConsumer expiryReply; // Score from the deadline, if it comes first
+
+        // Phase timestamps (System.nanoTime) for Metrics
+        private final long acceptedNanos = System.nanoTime();
+        private long startedNanos;
+        private final QuizEvents.Login loginEvent = new QuizEvents.Login();
+
+        Session(Reactor reactor, SocketChannel channel) {
+            this.reactor = reactor;
+            this.channel = channel;
+            this.expiryReply = score -> reactor.execute(() -> onScored(score));
+            loginEvent.begin();
+        }
+
+        String remoteAddress() {
+            try {
+                return String.valueOf(channel.getRemoteAddress());
+            } catch (IOException e) {
+                return "unknown";
+            }
+        }
+
+        void onReadable(ByteBuffer readBuffer) throws Exception {
+            readBuffer.clear();
+            int bytesRead = channel.read(readBuffer);
+
+            if (bytesRead == -1) {
+                close();
+                return;
+            }
+            if (bytesRead == 0) return;
+
+            readBuffer.flip();
+            if (legacyIn != null) {
+                legacyIn.append(readBuffer);
+                return;
+            }
+            if (inboundLength + bytesRead > MAX_INBOUND_BYTES) {
+                throw new IOException("Request too large");
+            }
+            if (inboundLength + bytesRead > inbound.length) {
+                inbound = Arrays.copyOf(inbound, Math.max(inbound.length * 2, inboundLength + bytesRead));
+            }
+            readBuffer.get(inbound, inboundLength, bytesRead);
+            inboundLength += bytesRead;
+
+            if (!handshakeDone && !sniffProtocol()) return;
+
+            Object message;
+            while (!closed && binary && (message = nextFrame()) != null) {
+                handleMessage(message);
+            }
+        }
+
+        /**
+         * Pick the protocol from the first bytes; false if more bytes are needed
+         */
+        private boolean sniffProtocol() throws IOException {
+            if (inboundLength < 4) return false;
+
+            if (readInt(inbound, 0) == QuizProtocol.MAGIC) {
+                if (inboundLength < 5) return false;
+                int version = Math.min(inbound[4] & 0xFF, QuizProtocol.VERSION);
+                if (version < 1) throw new IOException("Unsupported protocol version");
+                consume(5);
+
+                ByteBuffer reply = ByteBuffer.allocate(5);
+                reply.putInt(QuizProtocol.MAGIC).put((byte) version).flip();
+                enqueue(reply);
+                binary = true;
+            } else {
+                out = new ObjectOutputStream(new ChannelOutputStream());
+                out.flush(); // Stream header, the client's ObjectInputStream waits for it
+                startLegacyReader();
+            }
+            handshakeDone = true;
+            return true;
+        }
+
+        /**
+         * Decode the next complete binary frame, or null if more bytes are needed
+         */
+        private Object nextFrame() throws IOException {
+            if (inboundLength < 4) return null;
+            int length = readInt(inbound, 0);
+            if (length < 1 || length > QuizProtocol.MAX_FRAME_BYTES) {
+                throw new StreamCorruptedException("Bad frame length " + length);
+            }
+            if (inboundLength < 4 + length) return null;
+
+            Object message = QuizProtocol.decodeFrame(inbound, 4, length);
+            consume(4 + length);
+            return message;
+        }
+
+        private void consume(int count) {
+            System.arraycopy(inbound, count, inbound, 0, inboundLength - count);
+            inboundLength -= count;
+        }
+
+        private static int readInt(byte[] buf, int offset) {
+            return ((buf[offset] & 0xFF) << 24) | ((buf[offset + 1] & 0xFF) << 16)
+                    | ((buf[offset + 2] & 0xFF) << 8) | (buf[offset + 3] & 0xFF);
+        }
+
+        /**
+         * A serialization stream can't be decoded a piece at a time (objects refer back to
+         * class descriptors sent earlier), so one ObjectInputStream per session reads it on a
+         * virtual thread, blocking in legacyIn, and hands each object to the reactor in order
+         */
+        private void startLegacyReader() throws IOException {
+            legacyIn = new LegacyInput();
+            legacyIn.append(ByteBuffer.wrap(inbound, 0, inboundLength));
+            inboundLength = 0;
+
+            Thread.ofVirtual().name("quiz-legacy-reader").start(() -> {
+                try (ObjectInputStream in = new ObjectInputStream(legacyIn)) {
+                    while (true) {
+                        Object message = in.readObject();
+                        legacyIn.objectRead();
+                        reactor.execute(() -> {
+                            if (closed) return;
+                            try {
+                                handleMessage(message);
+                            } catch (Exception e) {
+                                System.out.println("Error with client " + remoteAddress() + ": " + e.getMessage());
+                                close();
+                            }
+                        });
+                    }
+                } catch (IOException | ClassNotFoundException e) {
+                    if (closed) return; // legacyIn ended because the session closed
+                    reactor.execute(() -> {
+                        System.out.println("Error with client " + remoteAddress() + ": " + e.getMessage());
+                        close();
+                    });
+                }
+            });
+        }
+
+        private void handleMessage(Object message) throws IOException {
+            switch (state) {
+                case AWAIT_LOGIN -> handleLogin(message);
+                case IN_QUIZ -> handleAnswers(message);
+                case TEACHER -> {
+                    TeacherRegistry.onMessage(outbox, message);
+                    if (message instanceof ResultCatchUp catchUp) {
+                        QuizServer.sendCatchUp(outbox, catchUp.getAfterSeq());
+                    }
+                }
+                default -> { } // Finished students send nothing we act on
+            }
+        }
+
+        private void handleLogin(Object message) throws IOException {
+            // 1️⃣ Wait for login
+            if (!(message instanceof LoginRequest login)) {
+                send(new LoginResponse(false, "Invalid initial request."));
+                closeAfterFlush();
+                return;
+            }
+
+            // Hashing runs on the Authenticator pool; the reactor picks the session up again when it's done
+            state = State.AUTHENTICATING;
+            Authenticator.authenticate(login).whenComplete((auth, error) -> reactor.execute(() -> {
+                if (closed) return;
+                try {
+                    onAuthenticated(error == null ? auth : Authenticator.Result.denied("Login failed"), login);
+                } catch (IOException e) {
+                    System.out.println("Error with client " + remoteAddress() + ": " + e.getMessage());
+                    close();
+                }
+            }));
+        }
+
+        private void onAuthenticated(Authenticator.Result auth, LoginRequest login) throws IOException {
+            boolean byToken = login.getToken() != null;
+            if (!auth.isSuccess()) {
+                Metrics.LOGIN_FAILURES.increment();
+                send(new LoginResponse(false, auth.getMessage()));
+                QuizEvents.login(loginEvent, login.getUsername(), false, byToken, false);
+                closeAfterFlush();
+                return;
+            }
+
+            // 2️⃣ Teacher login
+            if (auth.isTeacher()) {
+                send(new LoginResponse(true, "Teacher login successful", auth.getToken()));
+                Metrics.LOGIN.recordSince(acceptedNanos);
+                Metrics.LOGINS.increment();
+                QuizEvents.login(loginEvent, auth.getUsername(), true, byToken, true);
+                System.out.println("Teacher logged in: " + remoteAddress());
+                state = State.TEACHER;
+                outbox = QuizServer.addTeacher(this, () -> reactor.execute(this::close));
+                return;
+            }
+
+            // 3️⃣ Student login: one attempt per quiz, resumed on reconnect until it is over
+            username = auth.getUsername();
+            QuizPayload payload = QuizData.getPayload();
+            quizSession = QuizSessions.begin(username, payload);
+            if (quizSession.isOver()) {
+                send(new LoginResponse(false, QuizSessions.overMessage(quizSession)));
+                QuizEvents.login(loginEvent, username, false, byToken, false);
+                System.out.println("⛔ Login refused for " + username + ": attempt already over");
+                closeAfterFlush();
+                return;
+            }
+            send(new LoginResponse(true, "Student login successful", auth.getToken()));
+            long loggedInNanos = System.nanoTime();
+            Metrics.LOGIN.record(loggedInNanos - acceptedNanos);
+            Metrics.LOGINS.increment();
+            QuizEvents.login(loginEvent, username, false, byToken, true);
+            QuizEvents.QuizDelivered deliveredEvent = new QuizEvents.QuizDelivered();
+            deliveredEvent.begin();
+            System.out.println("Student logged in: " + username);
+
+            // 4️⃣ Send quiz and start timer (or pick up an attempt cut off by a dropped connection)
+            boolean resumed = quizSession.getConnections() > 1;
+            sendQuiz(payload, quizSession.getShuffle());
+            send("START_QUIZ:" + quizSession.remainingSeconds());
+            startedNanos = System.nanoTime();
+            Metrics.QUIZ_DELIVERY.record(startedNanos - loggedInNanos);
+            QuizEvents.quizDelivered(deliveredEvent, quizSession, resumed);
+            state = State.IN_QUIZ;
+            quizSession.setExpiryReply(expiryReply); // The deadline may score the attempt before the student does
+
+            if (byToken) send(new QuizResume(quizSession.answers()));
+            if (resumed) {
+                System.out.println("🔄 Resumed quiz for: " + username + " (" + quizSession.remainingSeconds() + "s left)");
+                return;
+            }
+            UDPNotificationTrigger.triggerQuizStart(username);
+            UDPNotificationTrigger.sendQuizEvent("Student " + username + " has started the quiz!");
+            System.out.println("🎯 Started 5-minute quiz for: " + username + " with automatic notifications");
+        }
+
+        private void handleAnswers(Object message) throws IOException {
+            // 5️⃣ Receive answers: checkpointed one by one, then the final int[]
+            if (message instanceof AnswerUpdate update) {
+                Metrics.ANSWER_UPDATES.increment();
+                quizSession.record(update.getQuestion(), update.getAnswer());
+                QuizEvents.answerReceived(quizSession, update.getQuestion(), startedNanos);
+                return;
+            }
+            if (!(message instanceof int[] answers)) {
+                System.out.println("Unexpected data type from client.");
+                close();
+                return;
+            }
+            Metrics.ANSWERING.recordSince(startedNanos);
+            QuizEvents.answerReceived(quizSession, -1, startedNanos);
+
+            // 6️⃣ Calculate score, 7️⃣ save result and update teacher views (SubmissionPipeline stages)
+            state = State.SCORING;
+            QuizSessions.submit(quizSession, answers, score -> reactor.execute(() -> onScored(score)));
+        }
+
+        private void onScored(int score) {
+            if (closed || state == State.DONE) return; // The deadline and a late submission can both reply
+            if (score == SubmissionPipeline.SCORE_FAILED) {
+                // A failed auto-submit leaves the student answering; a failed submission may be sent again
+                if (state != State.SCORING) return;
+                try {
+                    send(QuizSessions.SCORE_ERROR);
+                } catch (IOException e) {
+                    close();
+                    return;
+                }
+                state = State.IN_QUIZ;
+                return;
+            }
+            // 8️⃣ Send result to student
+            try {
+                send(Integer.valueOf(score));
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            state = State.DONE;
+            closeAfterFlush();
+        }
+
+        @Override
+        public void send(Object message) throws IOException {
+            if (binary) {
+                enqueue(ByteBuffer.wrap(QuizProtocol.encodeFrame(message)));
+            } else {
+                out.writeObject(message);
+                out.reset();
+                out.flush();
+            }
+            awaitDrain();
+        }
+
+        /**
+         * Backpressure for writers off the reactor thread: block the caller (a teacher
+         * outbox writer) while too much is unsent, so its own bounded queue fills up instead
+         */
+        private void awaitDrain() throws IOException {
+            if (Thread.currentThread() == reactor.thread) return;
+
+            drainLock.lock();
+            try {
+                while (!closed && pendingBytes.get() > MAX_PENDING_BYTES) {
+                    drained.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a slow client");
+            } finally {
+                drainLock.unlock();
+            }
+            if (closed) throw new IOException("Connection closed");
+        }
+
+        private void signalDrained() {
+            drainLock.lock();
+            try {
+                drained.signalAll();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+
+        /**
+         * Queue the pre-encoded quiz: the shared frame without copying it, or the
+         * student's shuffled copy of it
+         */
+        private void sendQuiz(QuizPayload payload, QuizShuffle shuffle) throws IOException {
+            if (binary) {
+                enqueue(payload.binaryFrame(shuffle));
+            } else {
+                out.flush();
+                enqueue(payload.legacyObject(shuffle));
+                out.reset(); // Matches the TC_RESET at the start of the payload
+            }
+        }
+
+        private void enqueue(ByteBuffer buffer) {
+            pendingBytes.addAndGet(buffer.remaining());
+            outbound.add(buffer);
+            if (flushScheduled.compareAndSet(false, true)) {
+                reactor.execute(() -> {
+                    flushScheduled.set(false);
+                    try {
+                        flushOutbound();
+                    } catch (IOException e) {
+                        close();
+                    }
+                });
+            }
+        }
+
+        /**
+         * Write queued frames until the socket buffer fills, then wait for OP_WRITE
+         */
+        void flushOutbound() throws IOException {
+            if (closed || key == null) return;
+
+            long before = pendingBytes.get();
+            try {
+                ByteBuffer head;
+                while ((head = outbound.peek()) != null) {
+                    pendingBytes.addAndGet(-channel.write(head));
+                    if (head.hasRemaining()) {
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    outbound.poll();
+                }
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            } finally {
+                if (before > MAX_PENDING_BYTES && pendingBytes.get() <= MAX_PENDING_BYTES) signalDrained();
+            }
+
+            if (closeAfterFlush) close();
+        }
+
+        private void closeAfterFlush() {
+            closeAfterFlush = true;
+            enqueue(ByteBuffer.allocate(0));
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+
+            if (outbox != null) {
+                QuizServer.removeTeacher(outbox);
+            }
+            if (quizSession != null) quizSession.clearExpiryReply(expiryReply);
+            if (key != null) key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing channel: " + e.getMessage());
+            }
+            outbound.clear();
+            signalDrained();
+            if (legacyIn != null) legacyIn.close();
+        }
+
+        /**
+         * Collects ObjectOutputStream output and hands it to the reactor on flush
+         */
+        private class ChannelOutputStream extends ByteArrayOutputStream {
+            @Override
+            public void flush() {
+                if (size() == 0) return;
+                enqueue(ByteBuffer.wrap(toByteArray()));
+                reset();
+            }
+        }
+    }
+
+    /**
+     * Bytes of a legacy serialization stream: the reactor appends what it reads and the
+     * session's reader thread blocks in read() until they arrive. Holds at most
+     * MAX_INBOUND_BYTES unread, and one object may not span more than that.
+     */
+    private static final class LegacyInput extends InputStream {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition arrived = lock.newCondition();
+        private byte[] data = new byte[512];
+        private int start = 0;       // Next byte for the reader
+        private int end = 0;         // One past the last byte appended
+        private int sinceObject = 0; // Bytes read since the last complete object
+        private boolean closed = false;
+
+        void append(ByteBuffer bytes) throws IOException {
+            lock.lock();
+            try {
+                int length = bytes.remaining();
+                if (end - start + length > MAX_INBOUND_BYTES) throw new IOException("Request too large");
+                if (end + length > data.length) {
+                    System.arraycopy(data, start, data, 0, end - start);
+                    end -= start;
+                    start = 0;
+                    if (end + length > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, end + length));
+                }
+                bytes.get(data, end, length);
+                end += length;
+                arrived.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** The reader finished an object; the size limit starts over */
+        void objectRead() {
+            lock.lock();
+            try {
+                sinceObject = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            lock.lock();
+            try {
+                while (start == end && !closed) arrived.await();
+                if (start == end) return -1;
+                int count = Math.min(len, end - start);
+                if (sinceObject + count > MAX_INBOUND_BYTES) throw new IOException("Request too large");
+                System.arraycopy(data, start, buf, off, count);
+                start += count;
+                sinceObject += count;
+                if (start == end) start = end = 0;
+                return count;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for client data");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int available() {
+            lock.lock();
+            try {
+                return end - start;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                closed = true;
+                arrived.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            Authenticator.loadCredentials();
+            QuizData.loadBank();
+            QuizServer.openJournal();
+            NioQuizServer server = new NioQuizServer();
+            server.start();
+        } catch (IOException e) {
+            System.err.println("Failed to start NIO quiz server: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
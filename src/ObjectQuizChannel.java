@@ -0,0 +1,50 @@
+package src;
+
+import java.io.*;
+import java.net.Socket;
+
+/**
+ * Legacy protocol: Java serialization over ObjectOutputStream/ObjectInputStream
+ */
+public class ObjectQuizChannel implements QuizChannel {
+    private final Socket socket;
+    private final OutputStream rawOut;
+    private final ObjectOutputStream out;
+    private final ObjectInputStream in;
+
+    public ObjectQuizChannel(Socket socket, OutputStream rawOut, InputStream rawIn) throws IOException {
+        this.socket = socket;
+        this.rawOut = rawOut;
+        this.out = new ObjectOutputStream(rawOut);
+        this.out.flush();
+        this.in = new ObjectInputStream(rawIn);
+    }
+
+    @Override
+    public void send(Object message) throws IOException {
+        out.writeObject(message);
+        out.reset(); // Long-lived teacher streams would otherwise grow their handle table forever
+        out.flush();
+    }
+
+    @Override
+    public void sendQuiz(QuizPayload payload, QuizShuffle shuffle) throws IOException {
+        out.flush();
+        payload.writeLegacyObject(rawOut, shuffle);
+        rawOut.flush();
+        out.reset(); // The peer dropped its handles at the payload's TC_RESET, forget ours too
+    }
+
+    @Override
+    public Object receive() throws IOException, ClassNotFoundException {
+        return in.readObject();
+    }
+
+    @Override
+    public boolean isBinary() { return false; }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
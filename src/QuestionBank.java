@@ -0,0 +1,182 @@
+package src;
+
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Read-only question bank file, memory-mapped.
+ *
+ * Layout: [int MAGIC][int version][int count][long indexOffset]
+ *         [question records...]
+ *         [long offset x (count + 1)]   (record i spans offset[i]..offset[i+1])
+ * Records use the same encoding as QuizProtocol QUIZ frames.
+ *
+ * Opening only maps the file and reads the header, so it takes the same time
+ * for ten questions or ten million; a Question is decoded when get() asks for it
+ * and the OS pages in only the records a quiz actually uses.
+ */
+public class QuestionBank implements Closeable {
+    public static final int MAGIC = 0x515A5142; // "QZQB"
+    public static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8;
+
+    private final File file;
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final LongBuffer index;
+    private final int count;
+
+    private QuestionBank(File file, FileChannel channel, MappedByteBuffer data, LongBuffer index, int count) {
+        this.file = file;
+        this.channel = channel;
+        this.data = data;
+        this.index = index;
+        this.count = count;
+    }
+
+    public static QuestionBank open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            if (length < HEADER_BYTES) throw new IOException(file + " is not a question bank");
+            if (length > Integer.MAX_VALUE) throw new IOException(file + " is larger than 2 GB");
+
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            data.order(ByteOrder.BIG_ENDIAN);
+            if (data.getInt(0) != MAGIC) throw new IOException(file + " is not a question bank");
+            if (data.getInt(4) != VERSION) throw new IOException("Unsupported question bank version " + data.getInt(4));
+
+            int count = data.getInt(8);
+            long indexOffset = data.getLong(12);
+            if (count < 0 || indexOffset < HEADER_BYTES || indexOffset + (count + 1L) * 8 != length) {
+                throw new IOException(file + " has a damaged index");
+            }
+            LongBuffer index = data.slice((int) indexOffset, (count + 1) * 8).asLongBuffer();
+            return new QuestionBank(file, channel, data, index, count);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Decode one question straight from the mapped file
+     */
+    public Question get(int i) throws IOException {
+        if (i < 0 || i >= count) throw new IndexOutOfBoundsException("Question " + i + " of " + count);
+        int start = (int) index.get(i);
+        int end = (int) index.get(i + 1);
+        if (start < HEADER_BYTES || end < start || end > data.limit()) {
+            throw new StreamCorruptedException("Bad offset for question " + i + " in " + file);
+        }
+
+        byte[] record = new byte[end - start];
+        data.get(start, record);
+        return QuizProtocol.readQuestion(new DataInputStream(new ByteArrayInputStream(record)));
+    }
+
+    /**
+     * Decode the questions of one quiz, in the given order
+     */
+    public List<Question> select(int[] indices) throws IOException {
+        List<Question> quiz = new ArrayList<>(indices.length);
+        for (int i : indices) quiz.add(get(i));
+        return quiz;
+    }
+
+    /**
+     * Parse a selection like "0-9" or "4,17,100-104" into bank indices
+     */
+    public static int[] parseSelection(String spec) {
+        int[] indices = new int[16];
+        int n = 0;
+        for (String part : spec.split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) continue;
+            int dash = part.indexOf('-', 1);
+            int from = Integer.parseInt(dash < 0 ? part : part.substring(0, dash).trim());
+            int to = dash < 0 ? from : Integer.parseInt(part.substring(dash + 1).trim());
+            for (int i = from; i <= to; i++) {
+                if (n == indices.length) indices = Arrays.copyOf(indices, n * 2);
+                indices[n++] = i;
+            }
+        }
+        return Arrays.copyOf(indices, n);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Write a bank file; questions are streamed, only the offsets are kept in memory
+     */
+    public static int write(File file, Iterator<Question> questions) throws IOException {
+        long[] offsets = new long[1024];
+        int count = 0;
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(0);  // Count, patched below
+            out.writeLong(0); // Index offset, patched below
+
+            while (questions.hasNext()) {
+                if (count + 1 >= offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                offsets[count++] = out.size();
+                QuizProtocol.writeQuestion(out, questions.next());
+                if (out.size() == Integer.MAX_VALUE) throw new IOException("Question bank larger than 2 GB");
+            }
+            offsets[count] = out.size();
+
+            for (int i = 0; i <= count; i++) out.writeLong(offsets[i]);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(8);
+            raf.writeInt(count);
+            raf.writeLong(offsets[count]);
+        }
+        return count;
+    }
+
+    /**
+     * Generate a synthetic bank for load tests: java src.QuestionBank <file> <count>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java src.QuestionBank <file> <count>");
+            return;
+        }
+        int total = Integer.parseInt(args[1]);
+        long start = System.currentTimeMillis();
+
+        int written = write(new File(args[0]), new Iterator<>() {
+            int next = 0;
+
+            public boolean hasNext() { return next < total; }
+
+            public Question next() {
+                int i = next++;
+                return new Question("Bank question #" + i + ": which option is " + (char) ('A' + i % 4) + "?",
+                        new String[]{"Option A", "Option B", "Option C", "Option D"}, i % 4);
+            }
+        });
+        System.out.println("Wrote " + written + " questions to " + args[0] + " in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+}
@@ -0,0 +1,67 @@
+package src;
+
+import java.io.*;
+import java.net.Socket;
+
+/**
+ * A quiz connection speaking either the legacy ObjectOutputStream protocol or
+ * the binary QuizProtocol framing. Both carry the same message objects
+ * (LoginRequest, LoginResponse, List of Question, "START_QUIZ:n", int[], Integer,
+ * ResultBatch, ResultCatchUp).
+ */
+public interface QuizChannel extends MessageSink, Closeable {
+
+    Object receive() throws IOException, ClassNotFoundException;
+
+    /**
+     * Send the pre-encoded quiz without serializing it again, in the student's
+     * order when shuffle is set
+     */
+    void sendQuiz(QuizPayload payload, QuizShuffle shuffle) throws IOException;
+
+    boolean isBinary();
+
+    /**
+     * Server side: sniff the first bytes to pick the protocol the client speaks
+     */
+    static QuizChannel accept(Socket socket) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(socket.getInputStream());
+        OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+
+        in.mark(4);
+        int firstWord = new DataInputStream(in).readInt();
+        if (firstWord == QuizProtocol.MAGIC) {
+            int version = Math.min(in.read(), QuizProtocol.VERSION);
+            if (version < 1) throw new IOException("Unsupported protocol version");
+            DataOutputStream dataOut = new DataOutputStream(out);
+            dataOut.writeInt(QuizProtocol.MAGIC);
+            dataOut.writeByte(version);
+            dataOut.flush();
+            return new BinaryQuizChannel(socket, new DataInputStream(in), dataOut);
+        }
+
+        // Anything else must be an ObjectOutputStream header from an existing client
+        in.reset();
+        return new ObjectQuizChannel(socket, out, in);
+    }
+
+    /**
+     * Client side: open the requested protocol on a fresh socket
+     */
+    static QuizChannel connect(Socket socket, boolean binary) throws IOException {
+        if (!binary) {
+            return new ObjectQuizChannel(socket, socket.getOutputStream(), socket.getInputStream());
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out.writeInt(QuizProtocol.MAGIC);
+        out.writeByte(QuizProtocol.VERSION);
+        out.flush();
+
+        if (in.readInt() != QuizProtocol.MAGIC) throw new IOException("Server does not speak the binary protocol");
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > QuizProtocol.VERSION) throw new IOException("Unsupported protocol version " + version);
+        return new BinaryQuizChannel(socket, in, out);
+    }
+}
@@ -4,18 +4,20 @@ import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.IOException;
 import java.net.Socket;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class QuizClient {
     private static final String SERVER_HOST = "localhost";
     private static final int SERVER_PORT = 5000;
+    // -Dquiz.protocol=object talks the legacy serialization protocol
+    private static final boolean BINARY_PROTOCOL = !"object".equalsIgnoreCase(System.getProperty("quiz.protocol"));
 
     private JFrame frame;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    private src.QuizChannel channel;
     private Socket socket;
 
     private List<src.Question> quiz;
@@ -34,6 +36,14 @@ public class QuizClient {
     private src.ChatClientPanel chatPanel;
     private SimpleUDPListener udpListener;
     private String currentUsername;
+    private String sessionToken; // From the LoginResponse; authenticates chat and reconnects
+
+    // All quiz traffic after the quiz starts (answer checkpoints, reconnects, submit) runs here, in order
+    private final ExecutorService quizIO = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "QuizClientIO");
+        t.setDaemon(true);
+        return t;
+    });
 
     private javax.swing.Timer countdownTimer;
     private int timeLeftSeconds = 0;
@@ -84,15 +94,14 @@ public class QuizClient {
     private void sendLoginRequest(String username, String password, String role) {
         try {
             socket = new Socket(SERVER_HOST, SERVER_PORT);
-            out = new ObjectOutputStream(socket.getOutputStream());
-            in = new ObjectInputStream(socket.getInputStream());
+            channel = src.QuizChannel.connect(socket, BINARY_PROTOCOL);
 
-            out.writeObject(new src.LoginRequest(username, password, role));
-            out.flush();
+            channel.send(new src.LoginRequest(username, password, role));
 
-            Object response = in.readObject();
+            Object response = channel.receive();
             if (response instanceof src.LoginResponse res) {
                 if (res.isSuccess()) {
+                    sessionToken = res.getToken();
                     SwingUtilities.invokeLater(() -> {
                         frame.dispose();
                         if (role.equalsIgnoreCase("teacher")) {
@@ -131,7 +140,7 @@ public class QuizClient {
 
         JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT);
         splitPane.setLeftComponent(scoresScroll);
-        chatPanel = new src.ChatClientPanel(currentUsername + " (Teacher)");
+        chatPanel = new src.ChatClientPanel(currentUsername + " (Teacher)", sessionToken);
         
         // Initialize simple UDP listener for teacher
         udpListener = new SimpleUDPListener(teacherFrame, currentUsername + " (Teacher)");
@@ -146,13 +155,39 @@ public class QuizClient {
         textArea.setText("Welcome Teacher!\nThe students' scores will be displayed here.\n\n");
 
         new Thread(() -> {
+            long lastSeq = 0; // Sequence number of the last result shown
             try {
                 while (true) {
-                    Object obj = in.readObject();
-                    if (obj instanceof java.util.List<?> results) {
+                    Object obj = channel.receive();
+                    if (obj instanceof src.ResultBatch batch) {
+                        if (batch.isSnapshot()) {
+                            StringBuilder sb = new StringBuilder("Welcome Teacher!\n\n");
+                            for (String line : batch.getLines()) sb.append(line).append("\n");
+                            SwingUtilities.invokeLater(() -> textArea.setText(sb.toString()));
+                            lastSeq = batch.getLastSeq();
+                        } else if (batch.getFirstSeq() > lastSeq + 1) {
+                            // Missed some updates: ask for everything after what we have
+                            channel.send(new src.ResultCatchUp(lastSeq));
+                        } else if (batch.getLastSeq() > lastSeq) {
+                            StringBuilder sb = new StringBuilder();
+                            List<String> lines = batch.getLines();
+                            for (int i = (int) (lastSeq + 1 - batch.getFirstSeq()); i < lines.size(); i++) {
+                                sb.append(lines.get(i)).append("\n");
+                            }
+                            SwingUtilities.invokeLater(() -> textArea.append(sb.toString()));
+                            lastSeq = batch.getLastSeq();
+                        }
+                        // Large snapshots and catch-ups come in pages: ask for the next one
+                        if (batch.isMore() && batch.getLastSeq() == lastSeq) {
+                            channel.send(new src.ResultCatchUp(lastSeq));
+                        }
+                    } else if (src.QuizProtocol.HEARTBEAT.equals(obj)) {
+                        channel.send(src.QuizProtocol.HEARTBEAT); // Lets the server spot a dead connection
+                    } else if (obj instanceof java.util.List<?> results) {
+                        // Full list from a server without the delta feed
                         StringBuilder sb = new StringBuilder("Welcome Teacher!\n\n");
                         for (Object line : results) sb.append(line).append("\n");
-                        textArea.setText(sb.toString());
+                        SwingUtilities.invokeLater(() -> textArea.setText(sb.toString()));
                     }
                 }
             } catch (Exception ignored) {}
@@ -227,7 +262,7 @@ public class QuizClient {
         leftContainer.add(bottomPanel, BorderLayout.SOUTH);
         splitPane.setLeftComponent(leftContainer);
 
-        chatPanel = new src.ChatClientPanel(currentUsername);
+        chatPanel = new src.ChatClientPanel(currentUsername, sessionToken);
         
         // Update UDP listener with the quiz frame reference (already created after login)
         if (udpListener != null) {
@@ -252,7 +287,7 @@ public class QuizClient {
 
     private void receiveQuizFromServer() {
         try {
-            Object obj = in.readObject();
+            Object obj = channel.receive();
             if (obj instanceof List<?>) {
                 quiz = (List<src.Question>) obj;
                 answers = new int[quiz.size()];
@@ -260,7 +295,7 @@ public class QuizClient {
                 SwingUtilities.invokeLater(() -> displayQuestion(0));
             }
 
-            Object timerObj = in.readObject();
+            Object timerObj = channel.receive();
             if (timerObj instanceof String msg && msg.startsWith("START_QUIZ:")) {
                 int seconds = Integer.parseInt(msg.split(":")[1]);
                 SwingUtilities.invokeLater(() -> startCountdownTimer(seconds));
@@ -287,7 +322,7 @@ public class QuizClient {
                 ((javax.swing.Timer) e.getSource()).stop();
                 lblTimer.setText("Time Left: 00:00");
                 JOptionPane.showMessageDialog(frame, "Time is up! Submitting your answers...");
-                submitAnswers();
+                quizIO.execute(this::submitAnswers);
             }
         });
         countdownTimer.start();
@@ -314,14 +349,72 @@ public class QuizClient {
         int selected = -1;
         for (int i = 0; i < 4; i++) if (optionButtons[i].isSelected()) selected = i;
         answers[currentIndex] = selected;
+        streamAnswer(currentIndex, selected);
 
         if (currentIndex < quiz.size() - 1) {
             currentIndex++;
             displayQuestion(currentIndex);
         } else {
             btnNext.setEnabled(false);
-            new Thread(this::submitAnswers).start();
+            quizIO.execute(this::submitAnswers);
+        }
+    }
+
+    /**
+     * Checkpoint one answer on the server, so a dropped connection loses nothing
+     */
+    private void streamAnswer(int question, int answer) {
+        quizIO.execute(() -> {
+            try {
+                channel.send(new src.AnswerUpdate(question, answer));
+            } catch (IOException e) {
+                reconnect();
+            }
+        });
+    }
+
+    /**
+     * Log in again with the session token and continue the same attempt:
+     * the server sends the quiz (same order), the time left and the answers it has
+     */
+    private boolean reconnect() {
+        for (int attempt = 1; attempt <= 5; attempt++) {
+            try {
+                try { socket.close(); } catch (IOException ignored) {}
+                Thread.sleep(500L * attempt);
+
+                socket = new Socket(SERVER_HOST, SERVER_PORT);
+                channel = src.QuizChannel.connect(socket, BINARY_PROTOCOL);
+                channel.send(src.LoginRequest.withToken(sessionToken, "student"));
+
+                if (!(channel.receive() instanceof src.LoginResponse res)) return false;
+                if (!res.isSuccess()) {
+                    showError(res.getMessage()); // The attempt ended while we were away
+                    return false;
+                }
+                channel.receive(); // Quiz, already on screen
+                Object timerObj = channel.receive();
+                if (timerObj instanceof String msg && msg.startsWith("START_QUIZ:")) {
+                    int seconds = Integer.parseInt(msg.split(":")[1]);
+                    SwingUtilities.invokeLater(() -> startCountdownTimer(seconds));
+                }
+
+                if (channel.receive() instanceof src.QuizResume resume) {
+                    int[] saved = resume.getAnswers();
+                    for (int i = 0; i < answers.length && i < saved.length; i++) {
+                        if (answers[i] < 0) answers[i] = saved[i];
+                        else if (answers[i] != saved[i]) channel.send(new src.AnswerUpdate(i, answers[i]));
+                    }
+                }
+                System.out.println("Reconnected to quiz server (attempt " + attempt + ")");
+                return true;
+            } catch (InterruptedException e) {
+                return false;
+            } catch (Exception e) {
+                System.out.println("Reconnect attempt " + attempt + " failed: " + e.getMessage());
+            }
         }
+        return false;
     }
 
     private void submitAnswers() {
@@ -333,14 +426,24 @@ public class QuizClient {
                 udpListener.shutdown();
             }
             
-            out.writeObject(answers);
-            out.flush();
-            Object resp = in.readObject();
+            Object resp;
+            try {
+                channel.send(answers);
+                resp = channel.receive();
+            } catch (IOException e) {
+                if (!reconnect()) throw e;
+                channel.send(answers);
+                resp = channel.receive();
+            }
             if (resp instanceof Integer score) {
                 SwingUtilities.invokeLater(() -> {
                     JOptionPane.showMessageDialog(frame, "You scored: " + score + "/" + quiz.size());
                     frame.dispose();
                 });
+            } else if (resp instanceof String msg && msg.startsWith("SCORE_ERROR:")) {
+                // Nothing was recorded; let the student press Submit again
+                showError(msg.substring("SCORE_ERROR:".length()));
+                SwingUtilities.invokeLater(() -> btnNext.setEnabled(true));
             }
         } catch (Exception e) {
             showError("Error submitting answers: " + e.getMessage());
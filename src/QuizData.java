@@ -1,10 +1,71 @@
 package src;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 
 public class QuizData {
+    // Active quiz, shared read-only by all sessions; replace it with setQuestions()
+    private static volatile List<src.Question> questions = List.copyOf(defaultQuestions());
+    private static volatile src.QuizPayload payload;
+    private static long version = 0;
+
+    // Optional on-disk bank (-Dquiz.bank=<file>); -Dquiz.bankItems picks the quiz from it
+    public static final String BANK_FILE = System.getProperty("quiz.bank");
+    public static final String BANK_ITEMS = System.getProperty("quiz.bankItems", "0-9");
+    private static src.QuestionBank bank;
+
     public static List<src.Question> getQuestions() {
+        return questions;
+    }
+
+    /**
+     * Replace the active quiz and drop the cached encodings
+     */
+    public static synchronized void setQuestions(List<src.Question> list) {
+        questions = List.copyOf(list);
+        version++;
+        payload = null;
+    }
+
+    /**
+     * Open the question bank, if one is configured, and make the selected items the active quiz
+     */
+    public static synchronized void loadBank() throws IOException {
+        if (BANK_FILE == null || bank != null) return;
+
+        long start = System.currentTimeMillis();
+        bank = src.QuestionBank.open(new java.io.File(BANK_FILE));
+        setQuestions(bank.select(src.QuestionBank.parseSelection(BANK_ITEMS)));
+        System.out.println("📚 Question bank " + BANK_FILE + ": " + bank.size() + " questions, quiz of "
+                + questions.size() + " loaded in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    public static synchronized src.QuestionBank getBank() {
+        return bank;
+    }
+
+    /**
+     * The active quiz pre-encoded for the wire, built once per quiz version
+     */
+    public static src.QuizPayload getPayload() {
+        src.QuizPayload current = payload;
+        if (current != null) return current;
+
+        synchronized (QuizData.class) {
+            if (payload == null) {
+                try {
+                    payload = src.QuizPayload.encode(version, questions);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to encode quiz", e);
+                }
+            }
+            return payload;
+        }
+    }
+
+    private static List<src.Question> defaultQuestions() {
         List<src.Question> list = new ArrayList<>();
 
         list.add(new src.Question("Which language runs in a web browser?",
@@ -0,0 +1,223 @@
+package src;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events for the quiz lifecycle, chat and UDP services.
+ *
+ * They sit under the "Quiz Server" category next to the JVM's own GC, lock and
+ * socket events, so a recording of an exam shows which phase a pause or a
+ * contended monitor landed in. With no recording running, begin/end/commit are
+ * no-ops and shouldCommit() is false, so the fields are never filled in.
+ * jfr/exam-session.jfc is a recording template tuned for exam sessions.
+ */
+public final class QuizEvents {
+    private QuizEvents() {}
+
+    @Name("src.Login")
+    @Label("Login")
+    @Category({"Quiz Server", "Quiz"})
+    @Description("Connection accepted to login response sent")
+    @StackTrace(false)
+    public static final class Login extends Event {
+        @Label("Student")
+        public String student;
+
+        @Label("Quiz Id")
+        public long quizId;
+
+        @Label("Teacher")
+        public boolean teacher;
+
+        @Label("Token Login")
+        @Description("Reconnect with a session token instead of a password")
+        public boolean token;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("src.QuizDelivered")
+    @Label("Quiz Delivered")
+    @Category({"Quiz Server", "Quiz"})
+    @Description("Login response to the quiz and START_QUIZ sent")
+    @StackTrace(false)
+    public static final class QuizDelivered extends Event {
+        @Label("Student")
+        public String student;
+
+        @Label("Quiz Id")
+        public long quizId;
+
+        @Label("Questions")
+        public int questions;
+
+        @Label("Resumed")
+        @Description("Picked up an attempt cut off by a dropped connection")
+        public boolean resumed;
+    }
+
+    @Name("src.AnswerReceived")
+    @Label("Answer Received")
+    @Category({"Quiz Server", "Quiz"})
+    @Description("A checkpointed answer or the final answers read from a student")
+    @StackTrace(false)
+    public static final class AnswerReceived extends Event {
+        @Label("Student")
+        public String student;
+
+        @Label("Quiz Id")
+        public long quizId;
+
+        @Label("Question")
+        @Description("Position as the student sees it, -1 for the final answers")
+        public int question;
+
+        @Label("Final")
+        public boolean submission;
+
+        @Label("Since Start")
+        @Description("Time since START_QUIZ was sent on this connection")
+        @Timespan(Timespan.NANOSECONDS)
+        public long sinceStart;
+    }
+
+    @Name("src.ScoreComputed")
+    @Label("Score Computed")
+    @Category({"Quiz Server", "Quiz"})
+    @Description("One submission scored on the pipeline's score stage")
+    @StackTrace(false)
+    public static final class ScoreComputed extends Event {
+        @Label("Student")
+        public String student;
+
+        @Label("Quiz Id")
+        public long quizId;
+
+        @Label("Score")
+        public int score;
+
+        @Label("Total")
+        public int total;
+
+        @Label("Auto-Submit")
+        @Description("Scored from the checkpoint after the deadline")
+        public boolean autoSubmit;
+
+        @Label("Duplicate")
+        @Description("The attempt had already been scored")
+        public boolean duplicate;
+
+        @Label("Queued")
+        @Description("Time from publish to the score stage picking the submission up")
+        @Timespan(Timespan.NANOSECONDS)
+        public long queued;
+
+        @Label("Batch Scoring")
+        @Description("Time the score stage spent on the batch holding this submission")
+        @Timespan(Timespan.NANOSECONDS)
+        public long batch;
+    }
+
+    @Name("src.ChatBroadcast")
+    @Label("Chat Broadcast")
+    @Category({"Quiz Server", "Chat"})
+    @Description("A chat message written to every other client")
+    @StackTrace(false)
+    public static final class ChatBroadcast extends Event {
+        @Label("Sender")
+        public String student;
+
+        @Label("Recipients")
+        public int recipients;
+
+        @Label("Since Read")
+        @Description("Time from the message being read to the broadcast finishing")
+        @Timespan(Timespan.NANOSECONDS)
+        public long sinceRead;
+    }
+
+    @Name("src.NotificationSent")
+    @Label("Notification Sent")
+    @Category({"Quiz Server", "UDP"})
+    @Description("One UDP notification datagram sent by the AutoUDPNotifier")
+    @StackTrace(false)
+    public static final class NotificationSent extends Event {
+        @Label("Recipient")
+        public String student;
+
+        @Label("Teacher")
+        public boolean teacher;
+
+        @Label("Message")
+        public String message;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("src.PollResponse")
+    @Label("Poll Response")
+    @Category({"Quiz Server", "UDP"})
+    @Description("A POLL_ANSWER datagram collected by UDPQuickPoll")
+    @StackTrace(false)
+    public static final class PollResponse extends Event {
+        @Label("Student")
+        public String student;
+
+        @Label("Poll")
+        public String poll;
+
+        @Label("Answer")
+        public String answer;
+
+        @Label("Since Poll")
+        @Description("Time since the poll was broadcast")
+        @Timespan(Timespan.NANOSECONDS)
+        public long sincePoll;
+    }
+
+    /**
+     * End a Login begun at accept and commit it if a recording wants it
+     */
+    static void login(Login event, String student, boolean teacher, boolean token, boolean success) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.student = student;
+        event.quizId = QuizData.getPayload().getQuizId();
+        event.teacher = teacher;
+        event.token = token;
+        event.success = success;
+        event.commit();
+    }
+
+    static void quizDelivered(QuizDelivered event, QuizSession session, boolean resumed) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.student = session.getUsername();
+        event.quizId = session.getPayload().getQuizId();
+        event.questions = session.size();
+        event.resumed = resumed;
+        event.commit();
+    }
+
+    /**
+     * An instant event; question is -1 for the final answers
+     */
+    static void answerReceived(QuizSession session, int question, long startedNanos) {
+        AnswerReceived event = new AnswerReceived();
+        if (!event.shouldCommit()) return;
+        event.student = session.getUsername();
+        event.quizId = session.getPayload().getQuizId();
+        event.question = question;
+        event.submission = question < 0;
+        event.sinceStart = System.nanoTime() - startedNanos;
+        event.commit();
+    }
+}
@@ -0,0 +1,183 @@
+package src;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * The active quiz, encoded once for both wire protocols and compiled into an
+ * AnswerKey, shared by every session. The binary encoding is also kept per
+ * question, so a student's shuffled quiz is assembled from bytes, not re-encoded.
+ */
+public final class QuizPayload {
+    private final long version;
+    private final List<Question> questions;
+    private final byte[] binaryFrame;
+    private final byte[] legacyObject;
+    private final QuestionRecord[] records;
+    private final AnswerKey answerKey;
+    private final long quizId;
+
+    /**
+     * One question in QuizProtocol.writeQuestion layout, split where a shuffle reorders it
+     */
+    private static final class QuestionRecord {
+        final byte[] text;      // writeUTF(question text)
+        final byte[][] options; // writeUTF(option), in quiz order
+        final int correct;
+        final byte mode;
+        final byte type;
+        final int length;       // Encoded bytes of the whole question
+
+        QuestionRecord(Question q) throws IOException {
+            text = utf(q.getQuestionText());
+            String[] opts = q.getOptions();
+            options = new byte[opts.length][];
+            int bytes = text.length + 1 + 3;
+            for (int o = 0; o < opts.length; o++) {
+                options[o] = utf(opts[o]);
+                bytes += options[o].length;
+            }
+            correct = q.getCorrectOption();
+            mode = (byte) q.getNetworkMode().ordinal();
+            type = (byte) q.getQuestionType().ordinal();
+            length = bytes;
+        }
+
+        private static byte[] utf(String value) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length() + 2);
+            new DataOutputStream(bytes).writeUTF(value);
+            return bytes.toByteArray();
+        }
+    }
+
+    private QuizPayload(long version, List<Question> questions, byte[] binaryFrame, byte[] legacyObject)
+            throws IOException {
+        this.version = version;
+        this.questions = questions;
+        this.answerKey = AnswerKey.compile(questions);
+
+        // Content hash, so the same quiz keeps its ID (and shuffle seeds) across restarts
+        CRC32C crc = new CRC32C();
+        crc.update(binaryFrame);
+        this.quizId = ((long) binaryFrame.length << 32) | crc.getValue();
+        this.binaryFrame = binaryFrame;
+        this.legacyObject = legacyObject;
+        this.records = new QuestionRecord[questions.size()];
+        for (int i = 0; i < records.length; i++) records[i] = new QuestionRecord(questions.get(i));
+    }
+
+    static QuizPayload encode(long version, List<Question> questions) throws IOException {
+        byte[] binaryFrame = QuizProtocol.encodeFrame(questions);
+        return new QuizPayload(version, questions, binaryFrame, encodeLegacy(questions));
+    }
+
+    /**
+     * Serialize the list as the first object of a fresh stream and prefix it with
+     * TC_RESET, so it decodes the same at any point of a session's stream
+     */
+    private static byte[] encodeLegacy(List<Question> questions) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(2048);
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.flush();
+        int headerLength = bytes.size();
+        out.writeObject(new ArrayList<>(questions)); // Same wire shape as before the cache
+        out.flush();
+        byte[] stream = bytes.toByteArray();
+
+        byte[] legacyObject = new byte[stream.length - headerLength + 1];
+        legacyObject[0] = ObjectStreamConstants.TC_RESET;
+        System.arraycopy(stream, headerLength, legacyObject, 1, stream.length - headerLength);
+        return legacyObject;
+    }
+
+    public long getVersion() { return version; }
+    public List<Question> getQuestions() { return questions; }
+    public int size() { return questions.size(); }
+    public AnswerKey getAnswerKey() { return answerKey; }
+    public long getQuizId() { return quizId; }
+
+    /**
+     * Complete QuizProtocol QUIZ frame (read-only view, no copy)
+     */
+    public ByteBuffer binaryFrame() {
+        return ByteBuffer.wrap(binaryFrame).asReadOnlyBuffer();
+    }
+
+    public void writeBinaryFrame(OutputStream out) throws IOException {
+        out.write(binaryFrame);
+    }
+
+    /**
+     * QUIZ frame in a student's order (null shuffle = the shared frame): the
+     * per-question records are copied in the seeded order and only the correct
+     * option is renumbered, the same quiz QuizShuffle.apply() would give
+     */
+    public ByteBuffer binaryFrame(QuizShuffle shuffle) {
+        if (shuffle == null || records.length == 0) return binaryFrame();
+
+        int length = 1 + 2;
+        for (QuestionRecord r : records) length += r.length;
+        ByteBuffer frame = ByteBuffer.allocate(4 + length);
+        frame.putInt(length).put(QuizProtocol.QUIZ).putShort((short) records.length);
+        for (int p = 0; p < records.length; p++) {
+            int q = shuffle.question(p, records.length);
+            QuestionRecord r = records[q];
+            frame.put(r.text).put((byte) r.options.length);
+            int correct = r.correct;
+            for (int d = 0; d < r.options.length; d++) {
+                int o = shuffle.option(q, d, r.options.length);
+                frame.put(r.options[o]);
+                if (o == r.correct) correct = d;
+            }
+            frame.put((byte) correct).put(r.mode).put(r.type);
+        }
+        return frame.flip();
+    }
+
+    public void writeBinaryFrame(OutputStream out, QuizShuffle shuffle) throws IOException {
+        if (shuffle == null) {
+            writeBinaryFrame(out);
+            return;
+        }
+        ByteBuffer frame = binaryFrame(shuffle);
+        out.write(frame.array(), 0, frame.limit());
+    }
+
+    /**
+     * TC_RESET + serialized List<Question>; the writer must reset() its
+     * ObjectOutputStream afterwards so both handle tables agree again
+     */
+    public ByteBuffer legacyObject() {
+        return ByteBuffer.wrap(legacyObject).asReadOnlyBuffer();
+    }
+
+    public void writeLegacyObject(OutputStream out) throws IOException {
+        out.write(legacyObject);
+    }
+
+    /**
+     * legacyObject() in a student's order (null shuffle = the shared bytes). Java
+     * serialization numbers back-references across the whole stream, so this one
+     * is encoded per student rather than assembled from records.
+     */
+    public ByteBuffer legacyObject(QuizShuffle shuffle) throws IOException {
+        if (shuffle == null) return legacyObject();
+        return ByteBuffer.wrap(encodeLegacy(shuffle.apply(questions)));
+    }
+
+    public void writeLegacyObject(OutputStream out, QuizShuffle shuffle) throws IOException {
+        if (shuffle == null) {
+            writeLegacyObject(out);
+            return;
+        }
+        out.write(encodeLegacy(shuffle.apply(questions)));
+    }
+}
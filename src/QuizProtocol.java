@@ -0,0 +1,236 @@
+package src;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary wire protocol for quiz traffic (version 1)
+ *
+ * Handshake: the client opens with MAGIC + version byte, the server answers
+ * with MAGIC + the version it accepts. A client that opens with the
+ * ObjectOutputStream header (0xACED) keeps the legacy protocol instead.
+ *
+ * Frame: [int length][byte type][payload], length counts type + payload.
+ * Strings use DataOutput.writeUTF, so no class descriptors go on the wire.
+ */
+public final class QuizProtocol {
+    public static final int MAGIC = 0x515A4250; // "QZBP"
+    public static final int VERSION = 1;
+    public static final int MAX_FRAME_BYTES = 1 << 20;
+
+    // Frame types
+    public static final byte LOGIN_REQUEST = 1;
+    public static final byte LOGIN_RESPONSE = 2;
+    public static final byte QUIZ = 3;          // List<Question>
+    public static final byte START_QUIZ = 4;    // "START_QUIZ:<seconds>"
+    public static final byte ANSWERS = 5;       // int[]
+    public static final byte SCORE = 6;         // Integer
+    public static final byte RESULTS = 7;       // List<String>
+    public static final byte TEXT = 8;          // Any other String
+    public static final byte RESULT_BATCH = 9;  // ResultBatch
+    public static final byte CATCH_UP = 10;     // ResultCatchUp
+    public static final byte ANSWER = 11;       // AnswerUpdate
+    public static final byte RESUME = 12;       // QuizResume
+
+    // Liveness probe sent to teacher views (as a TEXT frame); clients echo it back
+    public static final String HEARTBEAT = "HEARTBEAT";
+
+    private static final String START_QUIZ_PREFIX = "START_QUIZ:";
+    private static final Question.NetworkMode[] MODES = Question.NetworkMode.values();
+    private static final Question.QuestionType[] TYPES = Question.QuestionType.values();
+
+    private QuizProtocol() {}
+
+    /**
+     * Encode a message into a complete frame, length prefix included
+     */
+    public static byte[] encodeFrame(Object message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // Length, patched below
+
+        if (message instanceof LoginRequest login) {
+            out.writeByte(LOGIN_REQUEST);
+            out.writeUTF(login.getUsername());
+            out.writeUTF(login.getPassword());
+            out.writeUTF(login.getRole());
+            out.writeUTF(login.getToken() == null ? "" : login.getToken());
+        } else if (message instanceof LoginResponse response) {
+            out.writeByte(LOGIN_RESPONSE);
+            out.writeBoolean(response.isSuccess());
+            out.writeUTF(response.getMessage());
+            out.writeUTF(response.getToken() == null ? "" : response.getToken());
+        } else if (message instanceof List<?> list && !list.isEmpty() && list.get(0) instanceof Question) {
+            out.writeByte(QUIZ);
+            out.writeShort(list.size());
+            for (Object q : list) writeQuestion(out, (Question) q);
+        } else if (message instanceof ResultBatch batch) {
+            out.writeByte(RESULT_BATCH);
+            out.writeLong(batch.getFirstSeq());
+            out.writeBoolean(batch.isSnapshot());
+            out.writeInt(batch.getLines().size());
+            for (String line : batch.getLines()) out.writeUTF(line);
+            out.writeBoolean(batch.isMore()); // Trailing, so older clients just ignore it
+        } else if (message instanceof ResultCatchUp catchUp) {
+            out.writeByte(CATCH_UP);
+            out.writeLong(catchUp.getAfterSeq());
+        } else if (message instanceof AnswerUpdate update) {
+            out.writeByte(ANSWER);
+            out.writeShort(update.getQuestion());
+            out.writeByte(update.getAnswer());
+        } else if (message instanceof QuizResume resume) {
+            out.writeByte(RESUME);
+            out.writeShort(resume.getAnswers().length);
+            for (int answer : resume.getAnswers()) out.writeByte(answer);
+        } else if (message instanceof List<?> list) {
+            out.writeByte(RESULTS);
+            out.writeInt(list.size());
+            for (Object line : list) out.writeUTF(String.valueOf(line));
+        } else if (message instanceof String text && isStartQuiz(text)) {
+            out.writeByte(START_QUIZ);
+            out.writeInt(Integer.parseInt(text.substring(START_QUIZ_PREFIX.length())));
+        } else if (message instanceof String text) {
+            out.writeByte(TEXT);
+            out.writeUTF(text);
+        } else if (message instanceof int[] answers) {
+            out.writeByte(ANSWERS);
+            out.writeShort(answers.length);
+            for (int answer : answers) {
+                if (answer < Byte.MIN_VALUE || answer > Byte.MAX_VALUE) {
+                    throw new IOException("Answer index out of range: " + answer);
+                }
+                out.writeByte(answer);
+            }
+        } else if (message instanceof Integer score) {
+            out.writeByte(SCORE);
+            out.writeInt(score);
+        } else {
+            throw new IOException("Unsupported message type: "
+                    + (message == null ? "null" : message.getClass().getName()));
+        }
+
+        out.flush();
+        byte[] frame = bytes.toByteArray();
+        int length = frame.length - 4;
+        if (length > MAX_FRAME_BYTES) throw new IOException("Frame too large: " + length);
+        frame[0] = (byte) (length >>> 24);
+        frame[1] = (byte) (length >>> 16);
+        frame[2] = (byte) (length >>> 8);
+        frame[3] = (byte) length;
+        return frame;
+    }
+
+    /**
+     * Decode a frame body (type byte + payload) back into the message object
+     */
+    public static Object decodeFrame(byte[] buf, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buf, offset, length));
+        byte type = in.readByte();
+
+        switch (type) {
+            case LOGIN_REQUEST: {
+                String username = in.readUTF(), password = in.readUTF(), role = in.readUTF();
+                String token = in.available() > 0 ? in.readUTF() : ""; // Absent in frames from older clients
+                return token.isEmpty() ? new LoginRequest(username, password, role) : LoginRequest.withToken(token, role);
+            }
+            case LOGIN_RESPONSE: {
+                boolean success = in.readBoolean();
+                String message = in.readUTF();
+                String token = in.available() > 0 ? in.readUTF() : "";
+                return new LoginResponse(success, message, token.isEmpty() ? null : token);
+            }
+            case QUIZ: {
+                int count = in.readUnsignedShort();
+                List<Question> quiz = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) quiz.add(readQuestion(in));
+                return quiz;
+            }
+            case START_QUIZ:
+                return START_QUIZ_PREFIX + in.readInt();
+            case ANSWERS: {
+                int[] answers = new int[in.readUnsignedShort()];
+                for (int i = 0; i < answers.length; i++) answers[i] = in.readByte();
+                return answers;
+            }
+            case SCORE:
+                return Integer.valueOf(in.readInt());
+            case RESULTS: {
+                int count = in.readInt();
+                if (count < 0 || count > length) throw new StreamCorruptedException("Bad result count " + count);
+                List<String> lines = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) lines.add(in.readUTF());
+                return lines;
+            }
+            case TEXT:
+                return in.readUTF();
+            case RESULT_BATCH: {
+                long firstSeq = in.readLong();
+                boolean snapshot = in.readBoolean();
+                int count = in.readInt();
+                if (count < 0 || count > length) throw new StreamCorruptedException("Bad result count " + count);
+                List<String> lines = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) lines.add(in.readUTF());
+                boolean more = in.available() > 0 && in.readBoolean(); // Absent in frames from older servers
+                return new ResultBatch(firstSeq, lines, snapshot, more);
+            }
+            case CATCH_UP:
+                return new ResultCatchUp(in.readLong());
+            case ANSWER:
+                return new AnswerUpdate(in.readUnsignedShort(), in.readByte());
+            case RESUME: {
+                int[] answers = new int[in.readUnsignedShort()];
+                for (int i = 0; i < answers.length; i++) answers[i] = in.readByte();
+                return new QuizResume(answers);
+            }
+            default:
+                throw new StreamCorruptedException("Unknown frame type " + type);
+        }
+    }
+
+    /**
+     * Bytes writeUTF() puts on the wire for text, length prefix included
+     */
+    static int utfLength(String text) {
+        int bytes = 2;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            bytes += c >= 1 && c <= 0x7F ? 1 : c <= 0x7FF ? 2 : 3;
+        }
+        return bytes;
+    }
+
+    private static boolean isStartQuiz(String text) {
+        if (!text.startsWith(START_QUIZ_PREFIX) || text.length() == START_QUIZ_PREFIX.length()) return false;
+        for (int i = START_QUIZ_PREFIX.length(); i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) return false;
+        }
+        return text.length() - START_QUIZ_PREFIX.length() < 10;
+    }
+
+    static void writeQuestion(DataOutputStream out, Question q) throws IOException {
+        out.writeUTF(q.getQuestionText());
+        String[] options = q.getOptions();
+        out.writeByte(options.length);
+        for (String option : options) out.writeUTF(option);
+        out.writeByte(q.getCorrectOption());
+        out.writeByte(q.getNetworkMode().ordinal());
+        out.writeByte(q.getQuestionType().ordinal());
+    }
+
+    static Question readQuestion(DataInputStream in) throws IOException {
+        String text = in.readUTF();
+        String[] options = new String[in.readUnsignedByte()];
+        for (int i = 0; i < options.length; i++) options[i] = in.readUTF();
+        int correct = in.readByte();
+        int mode = in.readUnsignedByte();
+        int type = in.readUnsignedByte();
+        if (mode >= MODES.length || type >= TYPES.length) {
+            throw new StreamCorruptedException("Bad question mode/type");
+        }
+        if (MODES[mode] == Question.NetworkMode.TCP_RELIABLE && TYPES[type] == Question.QuestionType.MULTIPLE_CHOICE) {
+            return new Question(text, options, correct);
+        }
+        return new Question(text, options, correct, MODES[mode], TYPES[type]);
+    }
+}
@@ -0,0 +1,18 @@
+package src;
+
+import java.io.Serializable;
+
+/**
+ * Sent after START_QUIZ to a student logging in with a session token: the answers the server already has
+ */
+public class QuizResume implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int[] answers;
+
+    public QuizResume(int[] answers) {
+        this.answers = answers;
+    }
+
+    public int[] getAnswers() { return answers; }
+}
@@ -1,32 +1,183 @@
 package src;
 
-import java.io.ObjectOutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class QuizServer {
     public static final int PORT = 5000;
+    public static final int QUIZ_DURATION_SECONDS = 300;
 
-    // Shared data
-    public static final List<String> studentResults = new ArrayList<>();
-    public static final List<ObjectOutputStream> teacherStreams = new ArrayList<>();
+    // Engine selection: "blocking" (thread per session) or "nio" (selector reactors, see NioQuizServer)
+    public static final String ENGINE = System.getProperty("quiz.engine", "blocking");
+
+    // Connection executor settings (override with -Dquiz.executor=platform, -Dquiz.maxSessions=N)
+    public static final String EXECUTOR_MODE = System.getProperty("quiz.executor", "virtual");
+    public static final int MAX_SESSIONS = Integer.getInteger("quiz.maxSessions", 5000);
+    public static final int ACCEPT_BACKLOG = Integer.getInteger("quiz.backlog", 1024);
+
+    // Shared data; every submission gets a sequence number from the store
+    public static final src.ResultsStore results = new src.ResultsStore();
+    private static src.ResultsJournal journal; // Set once by openJournal() before any client is accepted
+    // Snapshot and catch-up pages must fit one frame; room is left for the batch's own fields
+    static final int RESULT_PAGE_BYTES = src.QuizProtocol.MAX_FRAME_BYTES - 64;
+
+    // A lock instead of a monitor so blocked virtual threads never pin their carrier.
+    // teacherLock orders result appends with TeacherRegistry subscribe/publish.
+    public static final ReentrantLock teacherLock = new ReentrantLock();
+
+    // Short background tasks (teacher outbox drains), virtual unless -Dquiz.executor=platform
+    static final ExecutorService BACKGROUND = newExecutor("quiz-bg-");
 
     public static void main(String[] args) {
+        registerMetrics();
+        src.Metrics.start();
+        if (ENGINE.equalsIgnoreCase("nio")) {
+            src.NioQuizServer.main(args);
+            return;
+        }
+
         System.out.println("Starting Quiz Server on port " + PORT + "...");
-        try (ServerSocket serverSocket = new ServerSocket(PORT)) {
-            System.out.println("Server started. Waiting for clients...");
+        try {
+            src.Authenticator.loadCredentials();
+            src.QuizData.loadBank();
+            openJournal();
+        } catch (Exception e) {
+            System.err.println("Failed to start: " + e.getMessage());
+            return;
+        }
+        Semaphore admission = new Semaphore(MAX_SESSIONS);
+
+        try (ServerSocket serverSocket = new ServerSocket(PORT, ACCEPT_BACKLOG);
+             ExecutorService sessions = newExecutor("quiz-session-")) {
+            System.out.println("Server started (" + EXECUTOR_MODE + " threads, max " + MAX_SESSIONS
+                    + " sessions). Waiting for clients...");
 
             while (true) {
-                Socket clientSocket = serverSocket.accept();
+                // Bounded admission: extra logins wait in the accept backlog instead of costing a thread
+                admission.acquire();
+                Socket clientSocket;
+                try {
+                    clientSocket = serverSocket.accept();
+                } catch (Exception e) {
+                    admission.release();
+                    throw e;
+                }
                 System.out.println("Client connected from " + clientSocket.getInetAddress());
-                Thread t = new Thread(new src.ClientHandler(clientSocket));
-                t.start();
+                sessions.execute(() -> {
+                    try {
+                        new src.ClientHandler(clientSocket).run();
+                    } finally {
+                        admission.release();
+                    }
+                });
             }
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Replay the results journal into the store so scores and teacher views survive a restart
+     */
+    static synchronized void openJournal() throws java.io.IOException {
+        if (journal != null || src.ResultsJournal.DIR.equalsIgnoreCase("off")) return;
+        journal = src.ResultsJournal.open(new java.io.File(src.ResultsJournal.DIR), results);
+    }
+
+    /**
+     * Virtual threads by default; -Dquiz.executor=platform falls back to pooled platform threads
+     */
+    static ExecutorService newExecutor(String threadPrefix) {
+        if (EXECUTOR_MODE.equalsIgnoreCase("platform")) {
+            return Executors.newCachedThreadPool(Thread.ofPlatform().name(threadPrefix, 0).daemon(true).factory());
+        }
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadPrefix, 0).factory());
+    }
+
+    /**
+     * Subscribe a teacher view behind its own outbound queue and send it a snapshot of the current results
+     */
+    public static src.TeacherOutbox addTeacher(src.MessageSink out, java.io.Closeable connection) {
+        teacherLock.lock();
+        try {
+            return src.TeacherRegistry.subscribe(out, connection, resultsSince(0, true));
+        } finally {
+            teacherLock.unlock();
+        }
+    }
+
+    /**
+     * Resend the results after afterSeq to a teacher view that fell behind (or is
+     * paging through a snapshot), one page at a time
+     */
+    public static void sendCatchUp(src.TeacherOutbox outbox, long afterSeq) {
+        outbox.send(resultsSince(afterSeq, false));
+    }
+
+    /**
+     * One page of results after afterSeq; more is set when the page stopped short
+     */
+    static src.ResultBatch resultsSince(long afterSeq, boolean snapshot) {
+        long from = Math.max(0, Math.min(afterSeq, results.lastSeq()));
+        List<String> lines = results.linesAfter(from, RESULT_PAGE_BYTES);
+        boolean more = results.isVisible(from + lines.size() + 1);
+        return new src.ResultBatch(from + 1, lines, snapshot, more);
+    }
+
+    public static void removeTeacher(src.TeacherOutbox outbox) {
+        src.TeacherRegistry.unsubscribe(outbox);
+    }
+
+    /**
+     * Export teacher queues, result aggregates, held attempts and the pipeline backlog as gauges
+     */
+    static void registerMetrics() {
+        src.Metrics.gauge("quiz_teacher_views", "Subscribed teacher views",
+                () -> src.TeacherRegistry.subscribers().size());
+        src.Metrics.gauge("quiz_teacher_queue_depth", "Updates queued across all teacher views", () -> {
+            long depth = 0;
+            for (src.TeacherOutbox outbox : src.TeacherRegistry.subscribers()) depth += outbox.getQueueDepth();
+            return depth;
+        });
+        src.Metrics.gauge("quiz_teacher_queue_max_depth", "Deepest queue any current teacher view has reached", () -> {
+            int max = 0;
+            for (src.TeacherOutbox outbox : src.TeacherRegistry.subscribers()) max = Math.max(max, outbox.getMaxQueueDepth());
+            return max;
+        });
+        src.Metrics.gauge("quiz_results", "Results in the store", results::count);
+        src.Metrics.gauge("quiz_result_students", "Students with at least one result", results::studentCount);
+        src.Metrics.gauge("quiz_result_mean", "Mean score", results::mean);
+        src.Metrics.gauge("quiz_result_variance", "Population variance of the scores", results::variance);
+        src.Metrics.gauge("quiz_attempts", "Attempts held by QuizSessions, finished ones included",
+                src.QuizSessions::openSessions);
+        src.Metrics.gauge("quiz_pipeline_backlog", "Submissions published but not yet through every stage",
+                src.SubmissionPipeline::backlog);
+    }
+
+    /**
+     * Save a student's result to the store and journal. Called by the SubmissionPipeline's
+     * record stage while it holds teacherLock, so the deltas it then publishes stay in sequence order.
+     */
+    static long appendResult(String username, int score, int total, long correctBits) {
+        long seq = results.add(username, score, total, correctBits);
+        if (journal != null) {
+            try {
+                // Rewrite what an earlier failed append left out, so the journal stays in sequence
+                for (long missing = journal.getLastSeq() + 1; missing < seq; missing++) {
+                    journal.append(missing, results.studentName(results.getStudentId(missing)),
+                            results.getScore(missing), results.getTotal(missing), results.getCorrectBits(missing));
+                }
+                journal.append(seq, username, score, total, correctBits);
+            } catch (java.io.IOException e) {
+                System.out.println("⚠️ Result " + seq + " not journaled yet, retrying with the next one: " + e.getMessage());
+            }
+        }
+        return seq;
+    }
 }
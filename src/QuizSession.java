@@ -0,0 +1,134 @@
+package src;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+/**
+ * One student's attempt at the active quiz, kept across reconnects.
+ * Answers arrive one at a time (AnswerUpdate) and live in a byte per
+ * question, in the order the student sees them; -1 means unanswered.
+ */
+public class QuizSession {
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final String username;
+    private final QuizPayload payload;
+    private final QuizShuffle shuffle; // Null when shuffling is off
+    private final byte[] answers;
+    private final long deadlineNanos;
+    private final AtomicBoolean submitted = new AtomicBoolean(false);
+    private volatile int score = -1;
+    private volatile int connections = 0; // Updated inside QuizSessions' map compute
+    private volatile TimingWheel.Timeout deadlineTimer;
+    private final AtomicReference<IntConsumer> expiryReply = new AtomicReference<>(); // The live connection, if any
+
+    QuizSession(String username, QuizPayload payload, QuizShuffle shuffle, int durationSeconds) {
+        this.username = username;
+        this.payload = payload;
+        this.shuffle = shuffle;
+        this.answers = new byte[payload.size()];
+        Arrays.fill(answers, (byte) -1);
+        this.deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+    }
+
+    public String getUsername() { return username; }
+    public QuizPayload getPayload() { return payload; }
+    public QuizShuffle getShuffle() { return shuffle; }
+    public boolean isSubmitted() { return submitted.get(); }
+    public int getScore() { return score; }
+    public int size() { return answers.length; }
+    public int getConnections() { return connections; }
+
+    /** Submitted or out of time: no more answers and no new connections */
+    public boolean isOver() {
+        return submitted.get() || deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    void attach() {
+        connections++;
+    }
+
+    void setDeadlineTimer(TimingWheel.Timeout timer) {
+        deadlineTimer = timer;
+    }
+
+    /**
+     * Where the score goes if the deadline scores this attempt while a connection is open;
+     * the latest connection replaces an earlier one
+     */
+    void setExpiryReply(IntConsumer reply) {
+        expiryReply.set(reply);
+    }
+
+    /** The connection closed; a later connection's reply is left alone */
+    void clearExpiryReply(IntConsumer reply) {
+        expiryReply.compareAndSet(reply, null);
+    }
+
+    IntConsumer expiryReply() {
+        return expiryReply.get();
+    }
+
+    void cancelDeadlineTimer() {
+        TimingWheel.Timeout timer = deadlineTimer;
+        if (timer != null) timer.cancel();
+    }
+
+    /**
+     * Checkpoint one answer; out-of-range positions are ignored
+     */
+    public void record(int question, int answer) {
+        if (question < 0 || question >= answers.length) return;
+        if (answer < -1 || answer > Byte.MAX_VALUE) answer = -1;
+        BYTES.setRelease(answers, question, (byte) answer);
+    }
+
+    /** Checkpointed answers, for a resuming client */
+    public int[] answers() {
+        int[] copy = new int[answers.length];
+        for (int i = 0; i < copy.length; i++) copy[i] = (byte) BYTES.getAcquire(answers, i);
+        return copy;
+    }
+
+    public int remainingSeconds() {
+        long left = deadlineNanos - System.nanoTime();
+        return left <= 0 ? 0 : (int) TimeUnit.NANOSECONDS.toSeconds(left + 999_999_999L);
+    }
+
+    /**
+     * True for the one submission of this attempt that gets scored and recorded
+     */
+    boolean claimSubmission() {
+        return submitted.compareAndSet(false, true);
+    }
+
+    /**
+     * Undo a claim whose scoring or recording failed, so a later submission is scored instead
+     */
+    void releaseSubmission() {
+        submitted.set(false);
+    }
+
+    /**
+     * The answers to score: a final int[] wins where it has an answer, the
+     * checkpoint fills the rest; null means the checkpoint alone
+     */
+    int[] finalAnswers(int[] submittedAnswers) {
+        int[] merged = answers();
+        if (submittedAnswers != null) {
+            for (int i = 0; i < merged.length && i < submittedAnswers.length; i++) {
+                if (submittedAnswers[i] >= 0) merged[i] = submittedAnswers[i];
+            }
+        }
+        return merged;
+    }
+
+    void scored(int score) {
+        this.score = score;
+    }
+}
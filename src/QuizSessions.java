@@ -0,0 +1,101 @@
+package src;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Quiz attempts by student and quiz, so a dropped connection can pick up where it left off.
+ * Every attempt has a deadline on the shared TimingWheel: once it passes (plus a
+ * grace period for a final submission still in flight) the attempt is scored
+ * from its checkpointed answers, whether or not the student is still connected.
+ * A student gets one attempt per quiz: finished attempts stay here, so logging
+ * in again after submitting or after the deadline starts nothing new.
+ */
+public class QuizSessions {
+    public static final int GRACE_SECONDS = Integer.getInteger("quiz.submitGraceSeconds", 10);
+    private static final long FULL_RETRY_MS = 100; // Pipeline full at the deadline: try again this much later
+
+    // Keyed by quizId + ":" + username; scored attempts are kept
+    private static final Map<String, QuizSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Attach a connection to the student's attempt at this quiz, starting it on the first
+     * login. QuizSession.getConnections() > 1 means it was resumed; isOver() means the
+     * attempt was submitted or ran out of time, and the login must be refused (overMessage()).
+     */
+    public static QuizSession begin(String username, QuizPayload payload) {
+        return sessions.compute(payload.getQuizId() + ":" + username, (key, existing) -> {
+            if (existing != null) {
+                if (!existing.isOver()) existing.attach();
+                return existing;
+            }
+            QuizShuffle shuffle = QuizShuffle.ENABLED ? QuizShuffle.forSession(payload.getQuizId(), username) : null;
+            QuizSession session = new QuizSession(username, payload, shuffle, QuizServer.QUIZ_DURATION_SECONDS);
+            session.attach();
+            session.setDeadlineTimer(TimingWheel.shared().schedule(() -> expire(session),
+                    QuizServer.QUIZ_DURATION_SECONDS + GRACE_SECONDS, TimeUnit.SECONDS));
+            return session;
+        });
+    }
+
+    /** Sent instead of a score when scoring failed; the student may submit again */
+    public static final String SCORE_ERROR = "SCORE_ERROR:Your answers could not be scored, please submit again";
+
+    /**
+     * Hand a final submission to the SubmissionPipeline; the reply gets the score
+     * (the earlier one if this attempt was already scored, SCORE_FAILED if scoring or recording threw)
+     */
+    public static void submit(QuizSession session, int[] finalAnswers, IntConsumer reply) {
+        SubmissionPipeline.publish(session, finalAnswers, reply);
+    }
+
+    /**
+     * Why a login to an attempt that is over gets no quiz
+     */
+    public static String overMessage(QuizSession session) {
+        int score = session.getScore();
+        if (score >= 0) return "You already finished this quiz. Score: " + score + "/" + session.size();
+        return session.isSubmitted() ? "Your answers are being scored, log in again for your result"
+                : "Time is up for this quiz, your answers are being scored";
+    }
+
+    /** A scored attempt needs no deadline (called by the pipeline's score stage) */
+    static void finished(QuizSession session) {
+        session.cancelDeadlineTimer();
+    }
+
+    /**
+     * A scored attempt the record stage could not store: open it for another submission
+     * and put its deadline back, unless that has passed already
+     */
+    static void unrecorded(QuizSession session) {
+        session.scored(-1);
+        session.releaseSubmission();
+        int left = session.remainingSeconds();
+        if (left > 0) {
+            session.setDeadlineTimer(TimingWheel.shared().schedule(() -> expire(session),
+                    left + GRACE_SECONDS, TimeUnit.SECONDS));
+        }
+    }
+
+    /** Attempts held, finished ones included (they answer repeat logins) */
+    public static int openSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Deadline plus grace period passed: score the attempt from its checkpoint and send the
+     * score to the student's connection if one is still open, which then closes. Runs on the
+     * wheel thread, so it never waits for ring space; a full pipeline retries a little later.
+     */
+    private static void expire(QuizSession session) {
+        // A final submission racing this one is scored as a duplicate in the pipeline
+        if (session.isSubmitted()) return;
+        if (!SubmissionPipeline.tryPublish(session, null, session.expiryReply())) {
+            session.setDeadlineTimer(TimingWheel.shared().schedule(() -> expire(session),
+                    FULL_RETRY_MS, TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-student question and option order, derived from a single seed.
+ *
+ * The seed mixes the quiz ID with the session key (the student's username,
+ * so a reconnecting student sees the same order). Positions map to questions
+ * through a keyed Feistel permutation with cycle-walking, so any index can be
+ * mapped on its own in O(1): delivery builds the shuffled quiz from it and
+ * scoring maps each answer back from it, and nothing but the seed is stored.
+ */
+public final class QuizShuffle {
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("quiz.shuffle", "true"));
+
+    private static final int ROUNDS = 4;
+    private static final long QUESTION_DOMAIN = 0x51A9E5D0C3B1F00DL;
+
+    private final long seed;
+
+    private QuizShuffle(long seed) {
+        this.seed = seed;
+    }
+
+    public static QuizShuffle forSession(long quizId, String sessionKey) {
+        long h = quizId;
+        for (int i = 0; i < sessionKey.length(); i++) {
+            h = mix(h ^ sessionKey.charAt(i));
+        }
+        return new QuizShuffle(mix(h ^ sessionKey.length()));
+    }
+
+    public long getSeed() { return seed; }
+
+    /**
+     * Original index of the question shown at position
+     */
+    public int question(int position, int questionCount) {
+        return permute(seed ^ QUESTION_DOMAIN, position, questionCount);
+    }
+
+    /**
+     * Original index of the option shown at displayed for a question; values
+     * outside 0..optionCount-1 (no answer) pass through unchanged
+     */
+    public int option(int question, int displayed, int optionCount) {
+        if (displayed < 0 || displayed >= optionCount) return displayed;
+        return permute(mix(seed + question), displayed, optionCount);
+    }
+
+    /**
+     * The quiz in this student's order; correct options are renumbered to match
+     */
+    public List<Question> apply(List<Question> quiz) {
+        int n = quiz.size();
+        List<Question> shuffled = new ArrayList<>(n);
+
+        for (int p = 0; p < n; p++) {
+            int q = question(p, n);
+            Question original = quiz.get(q);
+            String[] options = original.getOptions();
+            String[] shown = new String[options.length];
+            int correct = original.getCorrectOption();
+
+            for (int d = 0; d < options.length; d++) {
+                int o = option(q, d, options.length);
+                shown[d] = options[o];
+                if (o == original.getCorrectOption()) correct = d;
+            }
+
+            if (original.getNetworkMode() == Question.NetworkMode.TCP_RELIABLE
+                    && original.getQuestionType() == Question.QuestionType.MULTIPLE_CHOICE) {
+                shuffled.add(new Question(original.getQuestionText(), shown, correct));
+            } else {
+                shuffled.add(new Question(original.getQuestionText(), shown, correct,
+                        original.getNetworkMode(), original.getQuestionType()));
+            }
+        }
+        return shuffled;
+    }
+
+    /**
+     * Bijection on 0..size-1: a balanced Feistel network over the smallest
+     * even bit width that covers size, re-applied until the value lands in range
+     */
+    static int permute(long key, int value, int size) {
+        if (size <= 1) return value;
+
+        int bits = 32 - Integer.numberOfLeadingZeros(size - 1);
+        int half = (bits + 1) >>> 1;
+        int mask = (1 << half) - 1;
+
+        int x = value;
+        do {
+            int left = x >>> half;
+            int right = x & mask;
+            for (int r = 0; r < ROUNDS; r++) {
+                int next = left ^ ((int) mix(key + r * 0x9E3779B97F4A7C15L + right) & mask);
+                left = right;
+                right = next;
+            }
+            x = (left << half) | right;
+        } while (x >= size); // 2^(2*half) < 4 * size, so this ends after a few rounds on average
+        return x;
+    }
+
+    /** SplitMix64 finalizer */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,40 @@
+package src;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sequence-numbered result lines for the teacher dashboard.
+ * A snapshot replaces the view (sent once at login), otherwise the lines
+ * are appended; lines.get(i) has sequence number firstSeq + i.
+ * Snapshots and catch-ups come in pages that fit one frame: while more is set,
+ * the teacher asks for the next page with ResultCatchUp(getLastSeq()).
+ */
+public class ResultBatch implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long firstSeq;
+    private ArrayList<String> lines;
+    private boolean snapshot;
+    private boolean more; // Absent (false) in batches from older servers
+
+    public ResultBatch(long firstSeq, List<String> lines, boolean snapshot) {
+        this(firstSeq, lines, snapshot, false);
+    }
+
+    public ResultBatch(long firstSeq, List<String> lines, boolean snapshot, boolean more) {
+        this.firstSeq = firstSeq;
+        this.lines = lines instanceof ArrayList<String> list ? list : new ArrayList<>(lines);
+        this.snapshot = snapshot;
+        this.more = more;
+    }
+
+    public long getFirstSeq() { return firstSeq; }
+    public List<String> getLines() { return lines; }
+    public boolean isSnapshot() { return snapshot; }
+    public boolean isMore() { return more; }
+
+    /** Sequence number of the last line, or firstSeq - 1 when empty */
+    public long getLastSeq() { return firstSeq + lines.size() - 1; }
+}
@@ -0,0 +1,18 @@
+package src;
+
+import java.io.Serializable;
+
+/**
+ * Sent by a teacher view that missed updates: resend every result after afterSeq
+ */
+public class ResultCatchUp implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long afterSeq;
+
+    public ResultCatchUp(long afterSeq) {
+        this.afterSeq = afterSeq;
+    }
+
+    public long getAfterSeq() { return afterSeq; }
+}
@@ -0,0 +1,304 @@
+package src;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only results journal in memory-mapped segment files.
+ *
+ * Appending is a memory copy into the mapped segment, so the submit path never
+ * waits on the disk, and a JVM crash loses nothing that was appended (the pages
+ * already belong to the OS). A flusher thread forces dirty pages every
+ * FLUSH_MS, one fsync per burst of submissions (group commit), which bounds
+ * what an OS crash or power cut can lose.
+ *
+ * Record: [int length][int crc32][long seq][short score][short total][long correctBits][short nameLen][name UTF-8]
+ * A zero length marks the end of a segment; a bad CRC or a sequence gap marks a torn tail.
+ */
+public class ResultsJournal {
+    public static final String DIR = System.getProperty("quiz.journal", "results-journal"); // "off" disables
+    public static final int SEGMENT_BYTES = Integer.getInteger("quiz.journalSegmentMB", 16) << 20;
+    public static final long FLUSH_MS = Long.getLong("quiz.journalFlushMs", 50);
+
+    private static final int HEADER_BYTES = 8;
+    private static final int FIXED_PAYLOAD_BYTES = 8 + 2 + 2 + 8 + 2;
+    private static final int MAX_NAME_BYTES = 1024;
+
+    private final File dir;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dirty = lock.newCondition();
+    private final CRC32 crc = new CRC32();
+
+    // Guarded by lock
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int flushedPosition;
+    private long lastSeq;
+    private long durableSeq;
+    private boolean closed = false;
+
+    private ResultsJournal(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Open the journal, replay every intact record into the store and start the flusher
+     */
+    public static ResultsJournal open(File dir, ResultsStore store) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create journal directory " + dir);
+        }
+        ResultsJournal journal = new ResultsJournal(dir);
+        long start = System.nanoTime();
+        journal.replay(store);
+        System.out.println("📒 Results journal " + dir + ": replayed " + journal.lastSeq + " results in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+
+        Thread flusher = new Thread(journal::flushLoop, "ResultsJournal-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "ResultsJournal-close"));
+        return journal;
+    }
+
+    /**
+     * Append one result; seq must be the next sequence number. Never touches the disk directly.
+     */
+    public void append(long seq, String student, int score, int total, long correctBits) throws IOException {
+        byte[] name = student.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) name = Arrays.copyOf(name, utf8Boundary(name, MAX_NAME_BYTES));
+        int payload = FIXED_PAYLOAD_BYTES + name.length;
+
+        lock.lock();
+        try {
+            if (closed) throw new IOException("Journal closed");
+            if (seq != lastSeq + 1) throw new IOException("Journal out of sequence: " + seq + " after " + lastSeq);
+            if (segment.remaining() < HEADER_BYTES + payload + 4) {
+                roll(seq);
+            }
+
+            int start = segment.position();
+            segment.position(start + HEADER_BYTES);
+            segment.putLong(seq).putShort((short) score).putShort((short) total)
+                    .putLong(correctBits).putShort((short) name.length).put(name);
+
+            crc.reset();
+            crc.update(segment.slice(start + HEADER_BYTES, payload));
+            segment.putInt(start + 4, (int) crc.getValue());
+            segment.putInt(start, payload); // Length last: a record is only valid once complete
+
+            lastSeq = seq;
+            dirty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Highest sequence number appended; a failed append leaves it behind the store */
+    public long getLastSeq() {
+        lock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Highest sequence number forced to disk */
+    public long getDurableSeq() {
+        lock.lock();
+        try {
+            return durableSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Force what's left and stop the flusher (shutdown hook)
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            force();
+            closed = true;
+            dirty.signal();
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Journal close failed: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Group commit: sleep until something was appended, let the burst collect
+     * for FLUSH_MS, then one force() covers every record in it
+     */
+    private void flushLoop() {
+        while (true) {
+            lock.lock();
+            try {
+                while (!closed && durableSeq == lastSeq) dirty.await();
+                if (closed) return;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                Thread.sleep(FLUSH_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            // Take the range under the lock but msync without it, so appends (and the
+            // record stage behind them) never wait on the disk
+            MappedByteBuffer target;
+            int from;
+            int to;
+            long seq;
+            lock.lock();
+            try {
+                if (closed) return;
+                target = segment;
+                from = flushedPosition;
+                to = segment.position();
+                seq = lastSeq;
+            } finally {
+                lock.unlock();
+            }
+
+            if (to > from) target.force(from, to - from);
+
+            lock.lock();
+            try {
+                // A roll in the meantime forced the old segment itself and moved on
+                if (segment == target) {
+                    flushedPosition = Math.max(flushedPosition, to);
+                    durableSeq = Math.max(durableSeq, seq);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Callers hold lock
+    private void force() {
+        int end = segment.position();
+        if (end > flushedPosition) {
+            segment.force(flushedPosition, end - flushedPosition);
+            flushedPosition = end;
+        }
+        durableSeq = lastSeq;
+    }
+
+    /**
+     * Longest prefix of at most max bytes that ends on a character boundary
+     */
+    private static int utf8Boundary(byte[] utf8, int max) {
+        int end = max;
+        while (end > 0 && (utf8[end] & 0xC0) == 0x80) end--; // utf8[end] is a continuation byte
+        return end;
+    }
+
+    private void roll(long nextSeq) throws IOException {
+        force();
+        channel.close();
+        openSegment(nextSeq);
+    }
+
+    private void openSegment(long firstSeq) throws IOException {
+        File file = new File(dir, String.format("results-%016d.log", firstSeq));
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+        flushedPosition = 0;
+    }
+
+    /**
+     * Read segments in order, feed every record to the store and leave the
+     * last segment positioned after its final intact record
+     */
+    private void replay(ResultsStore store) throws IOException {
+        File[] files = dir.listFiles((d, n) -> n.startsWith("results-") && n.endsWith(".log"));
+        Arrays.sort(files == null ? new File[0] : files);
+
+        lock.lock();
+        try {
+            if (files == null || files.length == 0) {
+                openSegment(1);
+                return;
+            }
+
+            for (int i = 0; i < files.length; i++) {
+                boolean last = i == files.length - 1;
+                long firstSeq = Long.parseLong(files[i].getName().substring(8, 24));
+                if (firstSeq != lastSeq + 1) {
+                    throw new IOException("Journal segment " + files[i].getName() + " does not follow seq " + lastSeq);
+                }
+
+                openSegment(firstSeq);
+                boolean intact = replaySegment(store);
+                if (!intact && !last) {
+                    throw new IOException("Journal segment " + files[i].getName() + " is damaged mid-journal");
+                }
+                if (!last) channel.close();
+            }
+
+            // Wipe a torn tail so stale bytes can never be mistaken for records later
+            byte[] zeros = new byte[64 * 1024];
+            for (int p = segment.position(); p < segment.limit(); p += zeros.length) {
+                segment.put(p, zeros, 0, Math.min(zeros.length, segment.limit() - p));
+            }
+            segment.force();
+            flushedPosition = segment.position();
+            durableSeq = lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return false when the segment ends in a torn record */
+    private boolean replaySegment(ResultsStore store) {
+        MappedByteBuffer buf = segment;
+        while (buf.remaining() >= HEADER_BYTES) {
+            int start = buf.position();
+            int length = buf.getInt(start);
+            if (length == 0) return true; // Clean end
+            if (length < FIXED_PAYLOAD_BYTES || length > buf.remaining() - HEADER_BYTES) return false;
+
+            crc.reset();
+            crc.update(buf.slice(start + HEADER_BYTES, length));
+            if ((int) crc.getValue() != buf.getInt(start + 4)) return false;
+
+            buf.position(start + HEADER_BYTES);
+            long seq = buf.getLong();
+            int score = buf.getShort();
+            int total = buf.getShort();
+            long correctBits = buf.getLong();
+            byte[] name = new byte[buf.getShort()];
+            buf.get(name);
+            if (seq != lastSeq + 1) {
+                buf.position(start);
+                return false;
+            }
+
+            store.add(new String(name, StandardCharsets.UTF_8), score, total, correctBits);
+            lastSeq = seq;
+        }
+        return true;
+    }
+}
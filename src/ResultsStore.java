@@ -0,0 +1,219 @@
+package src;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory quiz results in primitive columns.
+ *
+ * Every submission gets a dense sequence number (1, 2, 3...) and every student
+ * name a dense student ID. Columns live in fixed-size chunks that are added
+ * with CAS, so writers never share a monitor: a submission costs 16 bytes
+ * (student ID, score, total, 64 correctness bits) plus 4 bytes per student.
+ * Count, sum, sum of squares, the score histogram and per-question correct
+ * counts are updated on insert, so the aggregates are O(1) to read.
+ */
+public final class ResultsStore {
+    public static final int MAX_TRACKED_QUESTIONS = 64; // Correctness bits kept per submission
+    public static final int MAX_SCORE = 1024;           // Histogram range
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CHUNKS = 1 << 12;       // 67M submissions / students
+
+    private static final VarHandle INT_ARRAY = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /** Submission columns for one chunk of sequence numbers */
+    private static final class EntryChunk {
+        final int[] studentIds = new int[CHUNK_SIZE]; // studentId + 1, written last; 0 = not yet visible
+        final short[] scores = new short[CHUNK_SIZE];
+        final short[] totals = new short[CHUNK_SIZE];
+        final long[] correctBits = new long[CHUNK_SIZE];
+    }
+
+    /** Student columns for one chunk of student IDs */
+    private static final class StudentChunk {
+        final String[] names = new String[CHUNK_SIZE];
+        final int[] latestSeq = new int[CHUNK_SIZE];  // Last submission of this student, 0 = none
+    }
+
+    private final AtomicReferenceArray<EntryChunk> entries = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicReferenceArray<StudentChunk> students = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final ConcurrentHashMap<String, Integer> studentIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextStudentId = new AtomicInteger();
+    private final AtomicLong nextSeq = new AtomicLong();
+
+    // Running aggregates
+    private final LongAdder count = new LongAdder();
+    private final LongAdder scoreSum = new LongAdder();
+    private final LongAdder scoreSquareSum = new LongAdder();
+    private final AtomicLongArray histogram = new AtomicLongArray(MAX_SCORE + 1);
+    private final AtomicLongArray correctPerQuestion = new AtomicLongArray(MAX_TRACKED_QUESTIONS);
+
+    /**
+     * Dense ID for a student name, assigned on first use
+     */
+    public int studentId(String name) {
+        Integer id = studentIds.get(name);
+        if (id != null) return id;
+
+        return studentIds.computeIfAbsent(name, n -> {
+            int newId = nextStudentId.getAndIncrement();
+            studentChunk(newId).names[newId & CHUNK_MASK] = n;
+            return newId;
+        });
+    }
+
+    public String studentName(int studentId) {
+        return studentChunk(studentId).names[studentId & CHUNK_MASK];
+    }
+
+    public int studentCount() {
+        return nextStudentId.get();
+    }
+
+    /**
+     * Record a submission and return its sequence number
+     *
+     * @param correctBits bit i set when question i was answered correctly (first 64 questions)
+     */
+    public long add(String student, int score, int total, long correctBits) {
+        if (score < 0 || score > MAX_SCORE || total < 0 || total > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Score out of range: " + score + "/" + total);
+        }
+        int studentId = studentId(student);
+        long seq = nextSeq.incrementAndGet();
+        int index = (int) (seq - 1);
+
+        EntryChunk chunk = entryChunk(index);
+        int slot = index & CHUNK_MASK;
+        chunk.scores[slot] = (short) score;
+        chunk.totals[slot] = (short) total;
+        chunk.correctBits[slot] = correctBits;
+        INT_ARRAY.setRelease(chunk.studentIds, slot, studentId + 1); // Publishes the row
+
+        StudentChunk sc = studentChunk(studentId);
+        INT_ARRAY.setRelease(sc.latestSeq, studentId & CHUNK_MASK, (int) seq);
+
+        count.increment();
+        scoreSum.add(score);
+        scoreSquareSum.add((long) score * score);
+        histogram.incrementAndGet(score);
+        for (long bits = correctBits; bits != 0; bits &= bits - 1) {
+            correctPerQuestion.incrementAndGet(Long.numberOfTrailingZeros(bits));
+        }
+        return seq;
+    }
+
+    /** Highest sequence number handed out; rows up to it may still be in flight */
+    public long lastSeq() {
+        return nextSeq.get();
+    }
+
+    public boolean isVisible(long seq) {
+        if (seq < 1 || seq > nextSeq.get()) return false;
+        int index = (int) (seq - 1);
+        EntryChunk chunk = entries.get(index >>> CHUNK_BITS);
+        return chunk != null && (int) INT_ARRAY.getAcquire(chunk.studentIds, index & CHUNK_MASK) != 0;
+    }
+
+    public int getStudentId(long seq) { return row(seq).studentIds[slot(seq)] - 1; }
+    public int getScore(long seq) { return row(seq).scores[slot(seq)]; }
+    public int getTotal(long seq) { return row(seq).totals[slot(seq)]; }
+    public long getCorrectBits(long seq) { return row(seq).correctBits[slot(seq)]; }
+
+    /** Sequence number of the student's latest submission, 0 if none */
+    public long latestSeq(int studentId) {
+        return (int) INT_ARRAY.getAcquire(studentChunk(studentId).latestSeq, studentId & CHUNK_MASK);
+    }
+
+    /** Teacher dashboard line for a submission */
+    public String line(long seq) {
+        return "Student " + studentName(getStudentId(seq)) + " scored: " + getScore(seq) + "/" + getTotal(seq);
+    }
+
+    /**
+     * Dashboard lines after afterSeq, stopping at the first row not yet visible or
+     * once the next line would take the page past maxBytes on the wire (always at
+     * least one line)
+     */
+    public List<String> linesAfter(long afterSeq, int maxBytes) {
+        long last = nextSeq.get();
+        List<String> lines = new ArrayList<>((int) Math.max(0, Math.min(last - afterSeq, CHUNK_SIZE)));
+        int bytes = 0;
+        for (long seq = Math.max(afterSeq, 0) + 1; seq <= last && isVisible(seq); seq++) {
+            String line = line(seq);
+            bytes += QuizProtocol.utfLength(line);
+            if (bytes > maxBytes && !lines.isEmpty()) break;
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    // Aggregates
+
+    public long count() { return count.sum(); }
+
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) scoreSum.sum() / n;
+    }
+
+    /** Population variance of all scores */
+    public double variance() {
+        long n = count.sum();
+        if (n == 0) return 0;
+        double mean = (double) scoreSum.sum() / n;
+        return Math.max(0, (double) scoreSquareSum.sum() / n - mean * mean);
+    }
+
+    public long histogram(int score) {
+        return histogram.get(score);
+    }
+
+    public long correctCount(int question) {
+        return correctPerQuestion.get(question);
+    }
+
+    // Chunk plumbing
+
+    private EntryChunk row(long seq) {
+        if (!isVisible(seq)) throw new IndexOutOfBoundsException("No result " + seq);
+        return entries.get((int) ((seq - 1) >>> CHUNK_BITS));
+    }
+
+    private static int slot(long seq) {
+        return (int) (seq - 1) & CHUNK_MASK;
+    }
+
+    private EntryChunk entryChunk(int index) {
+        int c = index >>> CHUNK_BITS;
+        if (c >= MAX_CHUNKS) throw new IllegalStateException("Results store is full");
+        EntryChunk chunk = entries.get(c);
+        if (chunk == null) {
+            entries.compareAndSet(c, null, new EntryChunk());
+            chunk = entries.get(c);
+        }
+        return chunk;
+    }
+
+    private StudentChunk studentChunk(int studentId) {
+        int c = studentId >>> CHUNK_BITS;
+        if (c >= MAX_CHUNKS) throw new IllegalStateException("Results store is full");
+        StudentChunk chunk = students.get(c);
+        if (chunk == null) {
+            students.compareAndSet(c, null, new StudentChunk());
+            chunk = students.get(c);
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,390 @@
+package src;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+import jdk.jfr.EventType;
+
+/**
+ * Staged path for final submissions, so network threads never score, journal or notify.
+ *
+ * Connection threads (and the session sweeper) claim a slot in a preallocated ring and
+ * publish the answers. Three single-writer stages then follow each other round the ring:
+ *   score  - merge with the checkpoint and score once per attempt; the attempts
+ *            claimed in a batch go through AnswerKey.scoreBatch together
+ *   record - store, journal and teacher fan-out; everything waiting is appended under
+ *            one teacherLock hold and sent to teachers as one ResultBatch
+ *   notify - reply to the student, then log and send the UDP score events
+ * Each stage takes every slot the stage before it has finished, so a deadline rush
+ * turns into a few large batches instead of thousands of lock handoffs. When the ring
+ * is full, publishers wait for the notify stage to free a slot.
+ */
+public class SubmissionPipeline {
+    public static final int SIZE = ceilingPowerOfTwo(Integer.getInteger("quiz.pipelineSize", 16_384));
+    private static final int MASK = SIZE - 1;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int MAX_BATCH = 256; // Caps how long the first submission of a rush waits on the last
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final EventType SCORE_EVENT = EventType.getEventType(QuizEvents.ScoreComputed.class);
+
+    /**
+     * One submission as it moves through the stages; reused every SIZE submissions
+     */
+    private static final class Slot {
+        QuizSession session;
+        int[] answers;     // Null for an auto-submit from the checkpoint
+        IntConsumer reply; // Null when nobody is waiting for the score
+        long publishedNanos;
+        int score;
+        int total;
+        long correctBits;
+        boolean first;     // False when the attempt had already been scored, or scoring failed
+        String line;
+    }
+
+    /** Score handed to the reply when scoring or recording threw; the attempt is left unsubmitted */
+    public static final int SCORE_FAILED = -1;
+
+    private static final Slot[] ring = new Slot[SIZE];
+    private static final long[] published = new long[SIZE]; // Sequence last published into each slot
+    // Attempts claimed in the current batch; only the score stage touches these
+    private static final Slot[] batchSlots = new Slot[MAX_BATCH];
+    private static final int[][] batchAnswers = new int[MAX_BATCH][];
+    private static final QuizShuffle[] batchShuffles = new QuizShuffle[MAX_BATCH];
+    private static final int[] batchScores = new int[MAX_BATCH];
+    private static long[] batchBits = new long[MAX_BATCH];
+    private static final AtomicLong claimed = new AtomicLong(-1);
+
+    private static final Stage scorer = new Stage("quiz-score") {
+        @Override
+        long available(long next) {
+            // Producers finish out of order; stop at the first slot not yet published
+            long seq = next;
+            while (seq - next < MAX_BATCH && (long) LONGS.getAcquire(published, (int) (seq & MASK)) == seq) seq++;
+            return seq - 1;
+        }
+
+        @Override
+        void process(long from, long to) {
+            score(from, to);
+        }
+    };
+
+    private static final Stage recorder = new Stage("quiz-record") {
+        @Override
+        long available(long next) {
+            return scorer.sequence;
+        }
+
+        @Override
+        void process(long from, long to) {
+            record(from, to);
+        }
+    };
+
+    private static final Stage notifier = new Stage("quiz-notify") {
+        @Override
+        long available(long next) {
+            return recorder.sequence;
+        }
+
+        @Override
+        void process(long from, long to) {
+            announce(from, to);
+        }
+    };
+
+    static {
+        for (int i = 0; i < SIZE; i++) {
+            ring[i] = new Slot();
+            published[i] = i - SIZE;
+        }
+        scorer.downstream = recorder;
+        recorder.downstream = notifier;
+        scorer.start();
+        recorder.start();
+        notifier.start();
+    }
+
+    /**
+     * Queue a final submission. The reply gets the score on the notify thread;
+     * null answers score the checkpoint alone.
+     */
+    public static void publish(QuizSession session, int[] answers, IntConsumer reply) {
+        long seq = claimed.incrementAndGet();
+        // The slot is free once the notify stage is past its previous lap
+        while (seq - SIZE > notifier.sequence) {
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        fill(seq, session, answers, reply);
+    }
+
+    /**
+     * publish() for threads that must never wait (the timing wheel): false, with
+     * nothing queued, while the ring is full
+     */
+    public static boolean tryPublish(QuizSession session, int[] answers, IntConsumer reply) {
+        long seq;
+        do {
+            seq = claimed.get() + 1;
+            if (seq - SIZE > notifier.sequence) return false;
+        } while (!claimed.compareAndSet(seq - 1, seq));
+        fill(seq, session, answers, reply);
+        return true;
+    }
+
+    private static void fill(long seq, QuizSession session, int[] answers, IntConsumer reply) {
+        Slot slot = ring[(int) (seq & MASK)];
+        slot.session = session;
+        slot.answers = answers;
+        slot.reply = reply;
+        slot.publishedNanos = System.nanoTime();
+        LONGS.setRelease(published, (int) (seq & MASK), seq);
+        scorer.wake();
+    }
+
+    /** Submissions published but not yet through every stage */
+    public static long backlog() {
+        return claimed.get() - notifier.sequence;
+    }
+
+    private static void score(long from, long to) {
+        int size = (int) (to - from + 1);
+        long started = System.nanoTime();
+
+        // Claim every attempt first, then score the claimed ones in runs sharing a quiz version
+        AnswerKey key = null;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            Slot slot = ring[(int) ((from + i) & MASK)];
+            slot.score = 0; // Left over from the slot's previous lap
+            try {
+                slot.first = slot.session.claimSubmission();
+                if (!slot.first) continue;
+                AnswerKey slotKey = slot.session.getPayload().getAnswerKey();
+                if (slotKey != key && count > 0) {
+                    scoreClaimed(key, count);
+                    count = 0;
+                }
+                key = slotKey;
+                batchAnswers[count] = slot.session.finalAnswers(slot.answers);
+                batchShuffles[count] = slot.session.getShuffle();
+                batchSlots[count++] = slot;
+            } catch (Exception e) {
+                scoringFailed(slot, e);
+            }
+        }
+        if (count > 0) scoreClaimed(key, count);
+
+        long scored = System.nanoTime() - started;
+        boolean traced = SCORE_EVENT.isEnabled(); // No event objects at all without a recording
+        for (int i = 0; i < size; i++) {
+            Slot slot = ring[(int) ((from + i) & MASK)];
+            if (!slot.first && slot.score != SCORE_FAILED) {
+                // Scored earlier in the ring (or just now); -1 means that scoring failed
+                int score = slot.session.getScore();
+                slot.score = score >= 0 ? score : SCORE_FAILED;
+            }
+            Metrics.SCORING.recordSince(slot.publishedNanos);
+            Metrics.SUBMISSIONS.increment();
+
+            if (!traced) continue;
+            QuizEvents.ScoreComputed event = new QuizEvents.ScoreComputed();
+            if (event.shouldCommit()) {
+                event.student = slot.session.getUsername();
+                event.quizId = slot.session.getPayload().getQuizId();
+                event.score = slot.score;
+                event.total = slot.session.size();
+                event.autoSubmit = slot.answers == null;
+                event.duplicate = !slot.first;
+                event.queued = Math.max(0, started - slot.publishedNanos);
+                event.batch = scored;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Score the first count claimed attempts of the batch against key and mark them scored
+     */
+    private static void scoreClaimed(AnswerKey key, int count) {
+        int words = key.words();
+        if (batchBits.length < count * words) batchBits = new long[MAX_BATCH * words];
+        try {
+            key.scoreBatch(batchAnswers, batchShuffles, count, batchScores, batchBits);
+        } catch (Exception e) {
+            // Score them one by one so only the submission that throws fails
+            for (int s = 0; s < count; s++) {
+                try {
+                    batchScores[s] = key.score(batchAnswers[s], batchShuffles[s], batchBits, s * words);
+                } catch (Exception failure) {
+                    scoringFailed(batchSlots[s], failure);
+                }
+            }
+        }
+
+        for (int s = 0; s < count; s++) {
+            Slot slot = batchSlots[s];
+            if (slot.first) {
+                slot.score = batchScores[s];
+                slot.total = key.size();
+                slot.correctBits = words == 0 ? 0 : batchBits[s * words];
+                slot.session.scored(slot.score);
+                QuizSessions.finished(slot.session);
+            }
+            batchSlots[s] = null;
+            batchAnswers[s] = null;
+            batchShuffles[s] = null;
+        }
+    }
+
+    private static void scoringFailed(Slot slot, Exception e) {
+        System.out.println("❌ Scoring failed for " + slot.session.getUsername() + ": " + e.getMessage());
+        // Nothing is recorded; give the attempt back so the student can submit again
+        if (slot.first) slot.session.releaseSubmission();
+        slot.first = false;
+        slot.score = SCORE_FAILED;
+        Metrics.SCORING_FAILURES.increment();
+    }
+
+    private static void record(long from, long to) {
+        long started = System.nanoTime();
+        List<String> lines = new ArrayList<>((int) (to - from + 1));
+        long firstSeq = 0;
+        QuizServer.teacherLock.lock();
+        try {
+            for (long seq = from; seq <= to; seq++) {
+                Slot slot = ring[(int) (seq & MASK)];
+                if (!slot.first) continue;
+                long resultSeq;
+                try {
+                    resultSeq = QuizServer.appendResult(slot.session.getUsername(), slot.score, slot.total, slot.correctBits);
+                } catch (RuntimeException e) {
+                    recordingFailed(slot, e); // The rest of the batch is still recorded
+                    continue;
+                }
+                if (!lines.isEmpty() && resultSeq != firstSeq + lines.size()) {
+                    // A batch is contiguous; send what we have if the store skipped a sequence
+                    TeacherRegistry.publish(new ResultBatch(firstSeq, lines, false));
+                    lines = new ArrayList<>();
+                }
+                if (lines.isEmpty()) firstSeq = resultSeq;
+                slot.line = QuizServer.results.line(resultSeq);
+                lines.add(slot.line);
+            }
+            if (!lines.isEmpty()) {
+                TeacherRegistry.publish(new ResultBatch(firstSeq, lines, false));
+            }
+        } finally {
+            QuizServer.teacherLock.unlock();
+        }
+
+        // Duplicates of an attempt that just failed to record have no final score either
+        for (long seq = from; seq <= to; seq++) {
+            Slot slot = ring[(int) (seq & MASK)];
+            if (!slot.first && slot.score != SCORE_FAILED && slot.session.getScore() < 0) slot.score = SCORE_FAILED;
+        }
+        Metrics.TEACHER_FANOUT.recordSince(started);
+        Metrics.RECORD_BATCHES.increment();
+    }
+
+    private static void recordingFailed(Slot slot, Exception e) {
+        System.out.println("❌ Recording failed for " + slot.session.getUsername() + ": " + e.getMessage());
+        // Not stored, so not final: reopen the attempt and reply with an error instead of the score
+        slot.first = false;
+        slot.score = SCORE_FAILED;
+        QuizSessions.unrecorded(slot.session);
+        Metrics.RECORD_FAILURES.increment();
+    }
+
+    private static void announce(long from, long to) {
+        // Scores first so students aren't waiting on the UDP sends
+        for (long seq = from; seq <= to; seq++) {
+            Slot slot = ring[(int) (seq & MASK)];
+            if (slot.reply == null) continue;
+            try {
+                slot.reply.accept(slot.score);
+                Metrics.SUBMIT.recordSince(slot.publishedNanos);
+            } catch (Exception e) {
+                System.out.println("Score reply failed for " + slot.session.getUsername() + ": " + e.getMessage());
+            }
+        }
+
+        for (long seq = from; seq <= to; seq++) {
+            Slot slot = ring[(int) (seq & MASK)];
+            if (slot.first) {
+                String username = slot.session.getUsername();
+                System.out.println(slot.reply == null ? "⏰ Auto-submitted from checkpoint: " + slot.line : slot.line);
+                // 📡 Notify score only to this student and teachers (not other students)
+                UDPNotificationTrigger.sendQuizEvent("SCORE:" + username + ":" +
+                        username + " finished the quiz! Score: " + slot.score + "/" + slot.total);
+            }
+            slot.session = null;
+            slot.answers = null;
+            slot.reply = null;
+            slot.line = null;
+        }
+    }
+
+    private static int ceilingPowerOfTwo(int n) {
+        return Integer.highestOneBit(Math.max(2, n) * 2 - 1);
+    }
+
+    /**
+     * A consumer thread that handles every slot up to what the stage before it has finished
+     */
+    private abstract static class Stage implements Runnable {
+        private final Thread thread;
+        volatile long sequence = -1; // Last slot this stage has finished
+        private volatile boolean waiting = false;
+        Stage downstream;
+
+        Stage(String name) {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        /** Highest sequence ready for this stage, or next - 1 if none */
+        abstract long available(long next);
+
+        abstract void process(long from, long to);
+
+        /** Unpark only if the stage went to sleep, so a busy stage costs its producer a volatile read */
+        void wake() {
+            if (waiting) LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            long next = 0;
+            while (true) {
+                long to = Math.min(available(next), next + MAX_BATCH - 1);
+                if (to < next) {
+                    // Announce the sleep, then look once more so a wake() in between isn't lost
+                    waiting = true;
+                    if (available(next) < next) LockSupport.parkNanos(PARK_NANOS);
+                    waiting = false;
+                    continue;
+                }
+                try {
+                    process(next, to);
+                } catch (Exception e) {
+                    System.out.println("Pipeline stage " + thread.getName() + " failed: " + e.getMessage());
+                }
+                sequence = to;
+                next = to + 1;
+                if (downstream != null) downstream.wake();
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded outbound queue for one teacher view, drained by a background task
+ * that only runs while there is something to send.
+ * Student submissions only offer() to it, so a teacher on a slow network
+ * never delays anyone's score. When the queue overflows, the queued deltas
+ * are dropped and replaced by a single catch-up batch starting after the
+ * last result this teacher actually received.
+ */
+public class TeacherOutbox implements MessageSink {
+    public static final int CAPACITY = Integer.getInteger("quiz.teacherQueue", 256);
+
+    private static final Object RESYNC = new Object();
+    private static final AtomicLong ids = new AtomicLong();
+
+    private final MessageSink target;
+    private final Closeable connection;
+    private final String name;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final AtomicBoolean resyncPending = new AtomicBoolean(false);
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private volatile boolean closed = false;
+
+    // Drain-task state (one drain runs at a time)
+    private long lastSentSeq = 0;
+    private boolean snapshotSent = false;
+
+    // Liveness, see TeacherRegistry
+    private volatile long lastSeen = System.currentTimeMillis();
+    private volatile boolean heartbeatCapable = false;
+
+    // High-water mark for the quiz_teacher_queue_max_depth gauge
+    private volatile int maxQueueDepth = 0;
+
+    public TeacherOutbox(MessageSink target, Closeable connection) {
+        this.target = target;
+        this.connection = connection;
+        this.name = "teacher-view-" + ids.incrementAndGet();
+    }
+
+    /**
+     * Queue a message for this teacher; never blocks
+     */
+    @Override
+    public void send(Object message) {
+        if (closed) return;
+
+        if (!queue.offer(message)) {
+            overflow();
+        }
+
+        int depth = queue.size();
+        if (depth > maxQueueDepth) maxQueueDepth = depth;
+
+        if (draining.compareAndSet(false, true)) {
+            QuizServer.BACKGROUND.execute(this::drain);
+        }
+    }
+
+    /**
+     * Teacher can't keep up: coalesce everything queued into one catch-up
+     */
+    private void overflow() {
+        int dropped = queue.size() + 1;
+        queue.clear();
+        Metrics.TEACHER_DROPPED.add(dropped);
+
+        // The clear also dropped a RESYNC queued by an earlier overflow, so always queue one again
+        queue.offer(RESYNC);
+        if (resyncPending.compareAndSet(false, true)) {
+            Metrics.TEACHER_RESYNCS.increment();
+            System.out.println("⚠️ " + name + " lagging: dropped " + dropped + " queued updates, will resync");
+        }
+    }
+
+    /**
+     * Write until the queue is empty, then give the thread back
+     */
+    private void drain() {
+        try {
+            while (true) {
+                Object message;
+                while (!closed && (message = queue.poll()) != null) {
+                    write(message);
+                }
+                draining.set(false);
+
+                // A send() may have queued after our last poll but lost the race to start a drain
+                if (closed || queue.isEmpty() || !draining.compareAndSet(false, true)) return;
+            }
+        } catch (IOException e) {
+            draining.set(false);
+            System.out.println(name + " write failed: " + e.getMessage());
+            TeacherRegistry.unsubscribe(this);
+        }
+    }
+
+    private void write(Object message) throws IOException {
+        if (message == RESYNC) {
+            resyncPending.set(false);
+            message = QuizServer.resultsSince(lastSentSeq, !snapshotSent);
+        }
+
+        if (message instanceof ResultBatch batch) {
+            if (!batch.isSnapshot() && batch.getFirstSeq() > lastSentSeq + 1) {
+                // Gap left by an overflow: fill it from the results log instead
+                batch = QuizServer.resultsSince(lastSentSeq, !snapshotSent);
+            }
+            target.send(batch);
+            snapshotSent |= batch.isSnapshot();
+            lastSentSeq = Math.max(lastSentSeq, batch.getLastSeq());
+        } else {
+            target.send(message);
+        }
+        Metrics.TEACHER_UPDATES.increment();
+    }
+
+    void markSeen(boolean heartbeatEcho) {
+        lastSeen = System.currentTimeMillis();
+        if (heartbeatEcho) heartbeatCapable = true;
+    }
+
+    /**
+     * Stop sending and close the underlying connection
+     */
+    void close() {
+        if (closed) return;
+        closed = true;
+        queue.clear();
+        TeacherRegistry.closeQuietly(connection);
+    }
+
+    public String getName() { return name; }
+    public long getLastSeen() { return lastSeen; }
+    public boolean isHeartbeatCapable() { return heartbeatCapable; }
+    public int getQueueDepth() { return queue.size(); }
+    public int getMaxQueueDepth() { return maxQueueDepth; }
+}
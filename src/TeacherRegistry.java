@@ -0,0 +1,89 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Subscription registry for teacher dashboards.
+ * A subscriber is a TeacherOutbox plus its connection; it holds no thread while
+ * idle (the outbox drains on demand). One shared timer sends heartbeats: a write
+ * failure removes the subscriber at once, and a client that echoes heartbeats
+ * but goes quiet for HEARTBEAT_TIMEOUT is treated as a half-open connection and closed.
+ */
+public class TeacherRegistry {
+    public static final String HEARTBEAT = QuizProtocol.HEARTBEAT;
+    public static final int HEARTBEAT_SECONDS = Integer.getInteger("quiz.heartbeatSeconds", 10);
+    private static final long HEARTBEAT_TIMEOUT_MS = HEARTBEAT_SECONDS * 3000L;
+
+    private static final List<TeacherOutbox> subscribers = new CopyOnWriteArrayList<>();
+    private static final ScheduledExecutorService heartbeatTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "TeacherHeartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        heartbeatTimer.scheduleAtFixedRate(TeacherRegistry::beat,
+                HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Subscribe a teacher connection; call under QuizServer.teacherLock so no delta is missed
+     */
+    static TeacherOutbox subscribe(MessageSink sink, Closeable connection, ResultBatch snapshot) {
+        TeacherOutbox outbox = new TeacherOutbox(sink, connection);
+        subscribers.add(outbox);
+        outbox.send(snapshot);
+        return outbox;
+    }
+
+    /**
+     * Remove a subscriber right away and close its connection (idempotent)
+     */
+    static void unsubscribe(TeacherOutbox outbox) {
+        if (subscribers.remove(outbox)) {
+            System.out.println("Teacher view removed: " + outbox.getName());
+        }
+        outbox.close();
+    }
+
+    static void publish(Object message) {
+        for (TeacherOutbox outbox : subscribers) {
+            outbox.send(message);
+        }
+    }
+
+    public static List<TeacherOutbox> subscribers() {
+        return List.copyOf(subscribers);
+    }
+
+    private static void beat() {
+        long now = System.currentTimeMillis();
+        for (TeacherOutbox outbox : subscribers) {
+            if (outbox.isHeartbeatCapable() && now - outbox.getLastSeen() > HEARTBEAT_TIMEOUT_MS) {
+                System.out.println("💔 " + outbox.getName() + " missed heartbeats, closing");
+                unsubscribe(outbox);
+            } else {
+                outbox.send(HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * Record inbound traffic from a teacher; a HEARTBEAT echo opts it into timeout checks
+     */
+    static void onMessage(TeacherOutbox outbox, Object message) {
+        outbox.markSeen(HEARTBEAT.equals(message));
+    }
+
+    static void closeQuietly(Closeable connection) {
+        try {
+            connection.close();
+        } catch (IOException ignored) {}
+    }
+}
@@ -0,0 +1,208 @@
+package src;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashed timing wheel: one thread and a ring of buckets instead of a
+ * java.util.Timer (and its thread) per student.
+ *
+ * A timeout lands in bucket (deadline tick % wheel size) with the number of full
+ * turns still to go, so scheduling and cancelling are O(1) and each pending
+ * timeout costs one small node, however many are pending. Deadlines are rounded
+ * up to the tick (-Dquiz.timerTickMs, 100 ms by default). Tasks run on the wheel
+ * thread and should only hand work off (a UDP send, a pipeline publish).
+ */
+public class TimingWheel {
+    public static final long DEFAULT_TICK_MS = Long.getLong("quiz.timerTickMs", 100);
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private static volatile TimingWheel shared;
+
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startNanos = System.nanoTime();
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private long tick = 0; // Wheel thread only
+
+    public TimingWheel(String name, long tickMillis, int wheelSize) {
+        if (tickMillis < 1) throw new IllegalArgumentException("tick must be at least 1 ms");
+        this.name = name;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheel = new Bucket[Integer.highestOneBit(Math.max(2, wheelSize) * 2 - 1)];
+        this.mask = wheel.length - 1;
+        for (int i = 0; i < wheel.length; i++) wheel[i] = new Bucket();
+
+        Thread worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * The process-wide wheel for quiz deadlines and reminders
+     */
+    public static TimingWheel shared() {
+        if (shared == null) {
+            synchronized (TimingWheel.class) {
+                if (shared == null) shared = new TimingWheel("QuizTimingWheel", DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Run the task once, no earlier than the delay from now (safe to call from any thread)
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startNanos + unit.toNanos(Math.max(0, delay));
+        Timeout timeout = new Timeout(this, task, deadline);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /** Timeouts scheduled but not yet run or cancelled */
+    public long pending() {
+        return pending.get();
+    }
+
+    private void run() {
+        while (true) {
+            long sleepNanos = (tick + 1) * tickNanos - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+
+            removeCancelled();
+            transferAdded();
+            wheel[(int) (tick & mask)].expire(tick);
+            tick++;
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK && (timeout = added.poll()) != null; i++) {
+            if (timeout.state != Timeout.PENDING) continue; // Cancelled before it was placed
+            // Round up, and never behind the bucket about to be expired
+            long deadlineTick = Math.max(tick, (timeout.deadline + tickNanos - 1) / tickNanos - 1);
+            timeout.rounds = (deadlineTick - tick) / wheel.length;
+            wheel[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) timeout.bucket.remove(timeout);
+        }
+    }
+
+    /**
+     * A scheduled task; one per pending deadline or reminder
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0, CANCELLED = 1, EXPIRED = 2;
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Timeout.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final TimingWheel owner;
+        private final Runnable task;
+        private final long deadline; // Nanos since the wheel started
+        private volatile int state = PENDING;
+
+        // Bucket links, wheel thread only
+        private long rounds;
+        private Bucket bucket;
+        private Timeout prev, next;
+
+        private Timeout(TimingWheel owner, Runnable task, long deadline) {
+            this.owner = owner;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Stop the task from running; false if it already ran or was cancelled
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) return false;
+            owner.pending.decrementAndGet();
+            owner.cancelled.add(this); // Unlinked on the next tick
+            return true;
+        }
+
+        public boolean isCancelled() { return state == CANCELLED; }
+        public boolean isExpired() { return state == EXPIRED; }
+    }
+
+    /**
+     * Doubly linked list of the timeouts hashed to one slot
+     */
+    private final class Bucket {
+        private Timeout head, tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (tail == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) timeout.prev.next = timeout.next; else head = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev; else tail = timeout.prev;
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * Run everything due this turn; the rest wait another lap
+         */
+        void expire(long currentTick) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.rounds <= 0) {
+                    remove(timeout);
+                    if (Timeout.STATE.compareAndSet(timeout, Timeout.PENDING, Timeout.EXPIRED)) {
+                        pending.decrementAndGet();
+                        try {
+                            timeout.task.run();
+                        } catch (Exception e) {
+                            System.out.println("⚠️ Timer task failed on " + name + " at tick " + currentTick + ": " + e.getMessage());
+                        }
+                    }
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
@@ -23,6 +23,7 @@ public class UDPNotificationServer {
     private Set<InetAddress> registeredClients = ConcurrentHashMap.newKeySet();
     
     public static void main(String[] args) {
+        Metrics.start();
         try {
             UDPNotificationServer server = new UDPNotificationServer();
             server.start();
@@ -83,6 +84,7 @@ public class UDPNotificationServer {
                 while (running) {
                     DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
                     regSocket.receive(packet);
+                    Metrics.UDP_RECEIVED.increment();
                     
                     String message = new String(packet.getData(), 0, packet.getLength());
                     if (message.startsWith("REGISTER_CLIENT:")) {
@@ -156,6 +158,7 @@ public class UDPNotificationServer {
                 InetAddress localhost = InetAddress.getByName("localhost");
                 DatagramPacket packet = new DatagramPacket(data, data.length, localhost, port);
                 socket.send(packet);
+                Metrics.UDP_SENT.increment();
             } catch (Exception e) {
                 // Ignore port failures - some clients might not be listening on all ports
             }
@@ -167,6 +170,7 @@ public class UDPNotificationServer {
             InetAddress broadcast = InetAddress.getByName("255.255.255.255");
             DatagramPacket packet = new DatagramPacket(data, data.length, broadcast, UDP_CLIENT_PORT);
             socket.send(packet);
+            Metrics.UDP_SENT.increment();
         } catch (Exception e) {
             // Ignore broadcast failures
         }
@@ -179,6 +183,7 @@ public class UDPNotificationServer {
             byte[] data = message.getBytes();
             DatagramPacket packet = new DatagramPacket(data, data.length, address, port);
             socket.send(packet);
+            Metrics.UDP_SENT.increment();
         } catch (Exception e) {
             System.err.println("Failed to send to " + address + ": " + e.getMessage());
             // Remove failed client
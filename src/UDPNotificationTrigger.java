@@ -20,6 +20,8 @@ public class UDPNotificationTrigger {
             DatagramPacket packet = new DatagramPacket(data, data.length, serverAddress, 5020);
             
             socket.send(packet);
+            
+            Metrics.UDP_SENT.increment();
             socket.close();
             
             System.out.println("🎯 Triggered individual quiz timer start for: " + studentName);
@@ -40,6 +42,8 @@ public class UDPNotificationTrigger {
             DatagramPacket packet = new DatagramPacket(data, data.length, serverAddress, 5020);
             
             socket.send(packet);
+            
+            Metrics.UDP_SENT.increment();
             socket.close();
             
             System.out.println("🎯 Triggered quiz timer stop for: " + studentName);
@@ -59,6 +63,8 @@ public class UDPNotificationTrigger {
             DatagramPacket packet = new DatagramPacket(data, data.length, serverAddress, 5020);
             
             socket.send(packet);
+            
+            Metrics.UDP_SENT.increment();
             socket.close();
             
             System.out.println("🎯 Sent quiz event: " + message);
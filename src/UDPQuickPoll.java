@@ -24,9 +24,11 @@ public class UDPQuickPoll {
     private Map<String, Long> responseTimestamps = new ConcurrentHashMap<>();
     private boolean pollActive = false;
     private String currentPollQuestion;
+    private volatile long pollStartedNanos;
     private String[] currentOptions;
     
     public static void main(String[] args) {
+        Metrics.start();
         try {
             UDPQuickPoll pollServer = new UDPQuickPoll();
             pollServer.start();
@@ -80,14 +82,25 @@ public class UDPQuickPoll {
         System.out.println("UDP Quick Poll Server stopped.");
     }
     
-    private void handlePollCommand(String pollData) {
+    /**
+     * "question | option1 | option2 | ..." -> {question, option1, option2, ...} with the
+     * question trimmed, or null with fewer than two options
+     */
+    static String[] parsePollCommand(String pollData) {
         String[] parts = pollData.split(" \\| ");
-        if (parts.length < 3) {
+        if (parts.length < 3) return null;
+        parts[0] = parts[0].trim();
+        return parts;
+    }
+
+    private void handlePollCommand(String pollData) {
+        String[] parts = parsePollCommand(pollData);
+        if (parts == null) {
             System.out.println("❌ Invalid format. Use: poll <question> | option1 | option2 | ...");
             return;
         }
         
-        String question = parts[0].trim();
+        String question = parts[0];
         String[] options = Arrays.copyOfRange(parts, 1, parts.length);
         
         startPoll(question, options);
@@ -115,6 +128,7 @@ public class UDPQuickPoll {
         responseTimestamps.clear();
         currentPollQuestion = question;
         currentOptions = options;
+        pollStartedNanos = System.nanoTime();
         pollActive = true;
         
         System.out.println("\n🚀 Starting new poll:");
@@ -147,6 +161,7 @@ public class UDPQuickPoll {
             InetAddress broadcast = InetAddress.getByName("255.255.255.255");
             DatagramPacket packet = new DatagramPacket(data, data.length, broadcast, 5006);
             pollSocket.send(packet);
+            Metrics.UDP_SENT.increment();
             
         } catch (Exception e) {
             System.err.println("Failed to broadcast poll: " + e.getMessage());
@@ -161,6 +176,7 @@ public class UDPQuickPoll {
                 while (true) {
                     DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
                     responseSocket.receive(packet);
+                    Metrics.UDP_RECEIVED.increment();
                     
                     String response = new String(packet.getData(), 0, packet.getLength());
                     String clientIP = packet.getAddress().getHostAddress();
@@ -175,18 +191,34 @@ public class UDPQuickPoll {
         }, "ResponseCollector").start();
     }
     
-    private void handlePollResponse(String response, String clientIP) {
-        // Format: "POLL_ANSWER:B:StudentName"
+    /**
+     * "POLL_ANSWER:B:StudentName" -> {B, StudentName}, or null if malformed
+     */
+    static String[] parsePollResponse(String response) {
         String[] parts = response.split(":", 3);
-        if (parts.length >= 3) {
-            String answer = parts[1];
-            String studentName = parts[2];
+        return parts.length >= 3 ? new String[]{parts[1], parts[2]} : null;
+    }
+
+    private void handlePollResponse(String response, String clientIP) {
+        String[] parsed = parsePollResponse(response);
+        if (parsed != null) {
+            String answer = parsed[0];
+            String studentName = parsed[1];
             
             String clientKey = clientIP + ":" + studentName;
             pollResponses.put(clientKey, answer);
             responseTimestamps.put(clientKey, System.currentTimeMillis());
             
             System.out.println("📥 Response from " + studentName + " (" + clientIP + "): " + answer);
+
+            QuizEvents.PollResponse event = new QuizEvents.PollResponse();
+            if (event.shouldCommit()) {
+                event.student = studentName;
+                event.poll = currentPollQuestion;
+                event.answer = answer;
+                event.sincePoll = System.nanoTime() - pollStartedNanos;
+                event.commit();
+            }
         }
     }
     